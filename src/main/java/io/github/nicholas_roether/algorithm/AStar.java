@@ -1,9 +1,10 @@
 package io.github.nicholas_roether.algorithm;
 
 import io.github.nicholas_roether.JSONSerializable;
-import io.github.nicholas_roether.graph.Graph;
-import io.github.nicholas_roether.graph.GraphNeighbor;
+import io.github.nicholas_roether.graph.ArcConsumer;
 import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import io.github.nicholas_roether.graph.NeighborConsumer;
 import io.github.nicholas_roether.physics_graph.NodePhysics;
 
 import java.util.*;
@@ -14,6 +15,9 @@ import java.util.*;
  * This class is written in such a way that the algorithm can be executed both step-by-step for the purposes of
  * visualization, and, though unused in this project, all at once, as a proper and efficient breadth-first
  * path-finding algorithm.
+ * <br>
+ * The algorithm works on any {@code GraphView}, including an {@code ImplicitGraph}, in which case only the nodes
+ * the algorithm actually reaches are ever created.
  *
  * @param <ND> The type of data stored in the graph nodes used. Must extend AStarNodeData.
  * @param <ED> The type of data stored in the graph edges used.
@@ -24,7 +28,7 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	/**
 	 * The graph the algorithm operates on.
 	 */
-	public final Graph<ND, ED> graph;
+	public final GraphView<ND, ED> graph;
 
 	/**
 	 * The node the algorithm starts from.
@@ -37,35 +41,45 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	public final GraphNode<ND> goal;
 
 	/**
-	 * All the nodes that the algorithm has currently discovered and still needs to check, ordered by the estimated
-	 * cost via that node to the goal.
-	 * <br>
-	 * The proper data structure to use for this would be an ordered set since nodes can't appear twice in this list,
-	 * but the fact that the ordering isn't static breaks the standard implementation.
+	 * The heuristic used to estimate the cost to reach the goal from each node.
 	 */
-	private final ArrayList<GraphNode<ND>> currentNodes = new ArrayList<>();
+	private final Heuristic<ND> heuristic;
 
 	/**
-	 * Maps all currently discovered nodes to the node via which they are reached most efficiently, according to the
-	 * algorithm's current knowledge.
+	 * The arc flags used to skip edges that don't lead towards the goal, or {@code null} if no edges are skipped.
 	 */
-	private final HashMap<GraphNode<ND>, GraphNode<ND>> pathMap = new HashMap<>();
+	private final ArcFlags<ND> arcFlags;
 
 	/**
-	 * Maps all currently discovered nodes to the cost to reach them via the most efficient path, according to the
-	 * algorithm's current knowledge.
-	 * <br>
-	 * The aforementioned cost consists of the sum of the weights of all edges traversed along the path.
+	 * The region of the goal in {@code arcFlags}.
 	 */
-	private final HashMap<GraphNode<ND>, Double> costMap = new HashMap<>();
+	private final int goalRegion;
 
 	/**
-	 * Maps all currently discovered nodes to the estimated cost of the fastest path that goes through them to the goal.
+	 * The memory the algorithm works in. It holds the cost, estimate and previous node of every discovered node, as
+	 * well as the nodes that the algorithm still needs to check, prioritized by the estimated cost via that node to
+	 * the goal.
 	 * <br>
-	 * This estimated cost consists of the known cost to reach the node, plus the estimated cost to reach the goal from
-	 * it. For implementation details on this estimate see {@code AStar.estimateCostToGoal()}.
+	 * The cost to reach a node consists of the sum of the weights of all edges traversed along the path, and the
+	 * estimated cost consists of the known cost to reach the node, plus the estimated cost to reach the goal from
+	 * it. This estimate is computed by the heuristic, see {@code AStar.estimateCostToGoal()}.
 	 */
-	private final HashMap<GraphNode<ND>, Double> estimateMap = new HashMap<>();
+	private final SearchWorkspace workspace;
+
+	/**
+	 * The queue of nodes that still need to be checked, taken from the workspace.
+	 */
+	private final IndexedHeap currentNodes;
+
+	/**
+	 * Maps the nodes to the indices they are stored under in the workspace.
+	 */
+	private final NodeIndexer<ND> indexer;
+
+	/**
+	 * The number of nodes the algorithm has checked so far.
+	 */
+	private int expandedNodeCount = 0;
 
 	/**
 	 * The node that the algorithm is currently checking.
@@ -77,6 +91,28 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	 */
 	private boolean finished = false;
 
+	/**
+	 * The index of the current node.
+	 */
+	private int currentIndex;
+
+	/**
+	 * The cost to reach the current node, cached for the duration of a step.
+	 */
+	private double costToCurrent;
+
+	/**
+	 * The callback that checks each neighbor of the current node. It is stored in a field so that it doesn't need to
+	 * be recreated on every step.
+	 */
+	private final NeighborConsumer<ND, ED> neighborChecker = this::checkNeighbor;
+
+	/**
+	 * The callback that checks each arc leaving the current node, used instead of {@code neighborChecker} if the
+	 * graph indexes its nodes.
+	 */
+	private final ArcConsumer arcChecker = this::checkArc;
+
 	/**
 	 * Constructs an instance of the A*-Algorithm.
 	 * <br>
@@ -87,29 +123,193 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	 * @param start The starting node
 	 * @param goal The node the algorithm tries to reach
 	 */
-	public AStar(Graph<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal) {
+	public AStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal) {
+		this(graph, start, goal, new SearchWorkspace());
+	}
+
+	/**
+	 * Constructs an instance of the A*-Algorithm that uses the given heuristic instead of the geometric estimate.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 * @throws IllegalArgumentException if the heuristic was computed for another graph, or the graph changed since
+	 *
+	 * @see LandmarkHeuristic
+	 */
+	public AStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal, Heuristic<ND> heuristic) {
+		this(graph, start, goal, new SearchWorkspace(), heuristic);
+	}
+
+	/**
+	 * Constructs an instance of the A*-Algorithm that skips the edges which, according to the given arc flags, don't
+	 * lie on any shortest path into the region of the goal.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param arcFlags The arc flags of the graph
+	 * @throws IllegalArgumentException if the arc flags weren't computed for the graph in its current state
+	 */
+	public AStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal, ArcFlags<ND> arcFlags) {
+		this(graph, start, goal, new SearchWorkspace(), AStar::estimateCost, arcFlags);
+	}
+
+	/**
+	 * Constructs an instance of the A*-Algorithm that works in the given workspace. The workspace is reset, and must
+	 * not be used by anything else for as long as this instance is in use.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param workspace The workspace to use
+	 *
+	 * @see SearchWorkspace
+	 */
+	public AStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal, SearchWorkspace workspace) {
+		this(graph, start, goal, workspace, AStar::estimateCost);
+	}
+
+	/**
+	 * Constructs an instance of the A*-Algorithm that works in the given workspace and uses the given heuristic. The
+	 * workspace is reset, and must not be used by anything else for as long as this instance is in use.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param workspace The workspace to use
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 * @throws IllegalArgumentException if the heuristic was computed for another graph, or the graph changed since
+	 */
+	public AStar(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			SearchWorkspace workspace,
+			Heuristic<ND> heuristic
+	) {
+		this(graph, start, goal, workspace, heuristic, null);
+	}
+
+	/**
+	 * Constructs an instance of the A*-Algorithm that works in the given workspace, uses the given heuristic, and
+	 * skips edges according to the given arc flags. The workspace is reset, and must not be used by anything else for
+	 * as long as this instance is in use.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param workspace The workspace to use
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 * @param arcFlags The arc flags of the graph, or {@code null} to not skip any edges
+	 * @throws IllegalArgumentException if the heuristic or the arc flags weren't computed for the graph in its current
+	 * 									state
+	 */
+	public AStar(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			SearchWorkspace workspace,
+			Heuristic<ND> heuristic,
+			ArcFlags<ND> arcFlags
+	) {
 		this.graph = graph;
-		if (!graph.getNodes().contains(start) || !graph.getNodes().contains(goal))
+		if (!graph.contains(start) || !graph.contains(goal))
 			throw new IllegalArgumentException("Start and end nodes must be contained in the graph");
 		this.start = start;
 		this.goal = goal;
+		this.workspace = workspace;
+		if (!heuristic.isFor(graph))
+			throw new IllegalArgumentException("The heuristic must be computed for the current graph");
+		this.heuristic = heuristic;
+		if (arcFlags != null && !arcFlags.isFor(graph))
+			throw new IllegalArgumentException("The arc flags must be computed for the current graph");
+		this.arcFlags = arcFlags;
+		goalRegion = arcFlags == null ? ArcFlags.NO_REGION : arcFlags.getRegion(goal);
+		currentNodes = workspace.getOpenNodes();
 		current = start;
 
+		indexer = new NodeIndexer<>(graph);
+
 		// Initialize the state of the algorithm
-		currentNodes.add(start);
-		costMap.put(start, 0.0);
-		estimateMap.put(start, 0.0);
+		workspace.reset();
+		workspace.ensureCapacity(indexer.getIndexBound());
+		final int startIndex = indexer.indexOf(start);
+		workspace.reach(startIndex, 0.0, 0.0, SearchWorkspace.NO_PARENT);
+		currentNodes.offer(startIndex, 0.0);
+	}
+
+	/**
+	 * Finds the shortest path from {@code start} to {@code goal} in the given graph, using a workspace from the pool of
+	 * the current thread, so that repeated searches produce almost no garbage.
+	 *
+	 * @param graph The graph to search
+	 * @param start The starting node
+	 * @param goal The node to find a path to
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the found path in form of an ordered list of the nodes it goes along, or {@code null} if no path to the
+	 * 		   goal was found.
+	 */
+	public static <ND extends AStarNodeData, ED extends JSONSerializable> List<GraphNode<ND>> findPath(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal
+	) {
+		return findPath(graph, start, goal, AStar::estimateCost);
+	}
+
+	/**
+	 * Finds the shortest path from {@code start} to {@code goal} in the given graph using the given heuristic, and a
+	 * workspace from the pool of the current thread.
+	 *
+	 * @param graph The graph to search
+	 * @param start The starting node
+	 * @param goal The node to find a path to
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the found path in form of an ordered list of the nodes it goes along, or {@code null} if no path to the
+	 * 		   goal was found.
+	 */
+	public static <ND extends AStarNodeData, ED extends JSONSerializable> List<GraphNode<ND>> findPath(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			Heuristic<ND> heuristic
+	) {
+		final SearchWorkspace workspace = SearchWorkspace.acquire();
+		try {
+			return new AStar<>(graph, start, goal, workspace, heuristic).execute();
+		} finally {
+			SearchWorkspace.release(workspace);
+		}
 	}
 
 	/**
 	 * Gets the cost to reach the given node via the shortest path currently known to the algorithm.
 	 *
 	 * @param node The node to find the cost to go to
-	 * @return The cost, or {@code null} if no path to the given node is known
+	 * @return The cost, or {@code Double.MAX_VALUE} if no path to the given node is known
 	 */
 	public double getCostFor(GraphNode<ND> node) {
-		if (!costMap.containsKey(node)) return Double.MAX_VALUE;
-		return costMap.get(node);
+		return workspace.getCost(indexer.findIndex(node));
 	}
 
 	/**
@@ -119,20 +319,46 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	 * cost from there to the goal without any consideration for the actual graph structure afterwards, known or not.
 	 *
 	 * @param node The node to find the estimate for.
-	 * @return The estimated cost, or {@code null} if no path to the given node is known.
+	 * @return The estimated cost, or {@code Double.MAX_VALUE} if no path to the given node is known.
 	 */
 	public double getEstimateFor(GraphNode<ND> node) {
-		if (!estimateMap.containsKey(node)) return Double.MAX_VALUE;
-		return estimateMap.get(node);
+		return workspace.getEstimate(indexer.findIndex(node));
+	}
+
+	/**
+	 * Gets the node via which the given node is reached most efficiently, according to the algorithm's current
+	 * knowledge.
+	 *
+	 * @param node The node to find the previous node for
+	 * @return The previous node, or {@code null} if no path to the given node is known, or it is the start
+	 */
+	public GraphNode<ND> getPredecessor(GraphNode<ND> node) {
+		final int parent = workspace.getParent(indexer.findIndex(node));
+		if (parent == SearchWorkspace.NO_PARENT) return null;
+		return indexer.nodeAt(parent);
 	}
 
 	/**
-	 * Estimates the cost to reach the goal from the given node, without any knowledge of the actual graph structure.
+	 * Estimates the cost to reach the goal from the given node using the heuristic of this instance. Unless another
+	 * heuristic was given, this is the geometric estimate of {@code AStar.estimateCost()}, which doesn't use any
+	 * knowledge of the actual graph structure.
 	 *
 	 * @param node The node to estimate the cost from
 	 * @return the estimated cost
 	 */
 	public double estimateCostToGoal(GraphNode<ND> node) {
+		return heuristic.estimate(node, goal);
+	}
+
+	/**
+	 * Estimates the cost of the shortest path between two nodes from their positions, without any knowledge of the
+	 * actual graph structure. This is the heuristic used by default.
+	 *
+	 * @param from The node the path starts at
+	 * @param to The node the path ends at
+	 * @return the estimated cost
+	 */
+	public static double estimateCost(GraphNode<? extends AStarNodeData> from, GraphNode<? extends AStarNodeData> to) {
 		/*
 		The way the algorithm estimates the cost is the following: it takes the positions of both the given node and the
 		goal, which are known, and computes the weight an edge would need to have to be in equilibrium at that distance,
@@ -152,9 +378,9 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 		underestimation of the weight that it would effectively render the heuristic useless altogether. Besides, adding
 		repulsion to the equation would mean solving a non-trivial cubic equation for every neighbor on every step,
 		which is expensive and frankly a mess to implement, so I feel that this is fine for the purposes of this
-		demonstration.
+		demonstration. For an admissible heuristic, see {@code LandmarkHeuristic}.
 		 */
-		final double distance = node.data.getPosition().dist(goal.data.getPosition());
+		final double distance = from.data.getPosition().dist(to.data.getPosition());
 		final double scaleFactor = NodePhysics.LENGTH_SCALE_FACTOR;
 
 		return distance / scaleFactor;
@@ -166,35 +392,70 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	public void step() {
 		if (hasHalted()) return;
 
-		// Make sure the nodes are correctly sorted.
-		currentNodes.sort(this::compareNodes);
 		// Check the node with the lowest estimated path cost.
-		current = currentNodes.get(0);
+		currentIndex = currentNodes.peek();
+		current = indexer.nodeAt(currentIndex);
 		// If the current node is the goal, halt the algorithm; it has found a path.
-		if (current == goal) {
+		if (current.equals(goal)) {
 			finished = true;
 			return;
 		}
 		// Remove the current node from the node list since it will be checked now.
-		currentNodes.remove(current);
-
-		final double costToCurrent = getCostFor(current);
-		// Loop through all neighbors of the current node.
-		for (GraphNeighbor<ND, ED> neighbor : graph.getNeighbors(current)) {
-			// Compute the cost to reach the neighboring node via the current one.
-			final double newCost = costToCurrent + neighbor.edgeWeight;
-			// If the previously computed cost isn't lower that the currently known one, skip this neighbor.
-			// The algorithm already knows a more efficient path to reach it.
-			if (newCost >= getCostFor(neighbor.node)) continue;
-			// Otherwise, update the path map so that the neighbor is reached via the current node, and update the
-			// neighbors cost in the cost map.
-			pathMap.put(neighbor.node, current);
-			costMap.put(neighbor.node, newCost);
-			// Compute a new estimate for reaching the goal via the neighbor and store it.
-			estimateMap.put(neighbor.node, newCost + estimateCostToGoal(neighbor.node));
-			// If it isn't already contained, add the neighboring node to the node list to be checked later.
-			if (!currentNodes.contains(neighbor.node)) currentNodes.add(neighbor.node);
-		}
+		currentNodes.poll();
+		expandedNodeCount++;
+
+		costToCurrent = workspace.getCost(currentIndex);
+		// Loop through all neighbors of the current node. If the graph indexes its nodes, go by index, so that the
+		// neighbors are only looked up once they are actually reached more efficiently.
+		if (indexer.isIndexedGraph()) graph.forEachArc(currentIndex, arcChecker);
+		else graph.forEachNeighbor(current, neighborChecker);
+	}
+
+	/**
+	 * Checks a neighbor of the current node, and updates the state of the algorithm if it can be reached more
+	 * efficiently via the current node than previously known.
+	 *
+	 * @param neighbor The neighboring node
+	 * @param edgeWeight The weight of the edge from the current node to the neighbor
+	 * @param edgeData The data of the edge from the current node to the neighbor
+	 */
+	private void checkNeighbor(GraphNode<ND> neighbor, double edgeWeight, ED edgeData) {
+		checkNeighbor(indexer.indexOf(neighbor), neighbor, edgeWeight);
+	}
+
+	/**
+	 * Checks a neighbor of the current node given by its index.
+	 *
+	 * @param neighborIndex The index of the neighboring node
+	 * @param edgeWeight The weight of the arc from the current node to the neighbor
+	 */
+	private void checkArc(int neighborIndex, double edgeWeight) {
+		checkNeighbor(neighborIndex, null, edgeWeight);
+	}
+
+	/**
+	 * Checks a neighbor of the current node, and updates the state of the algorithm if it can be reached more
+	 * efficiently via the current node than previously known.
+	 *
+	 * @param neighborIndex The index of the neighboring node
+	 * @param neighbor The neighboring node, or {@code null} if it still needs to be looked up
+	 * @param edgeWeight The weight of the edge from the current node to the neighbor
+	 */
+	private void checkNeighbor(int neighborIndex, GraphNode<ND> neighbor, double edgeWeight) {
+		// Compute the cost to reach the neighboring node via the current one.
+		final double newCost = costToCurrent + edgeWeight;
+		// If the edge doesn't lead towards the region of the goal, it can't be part of the shortest path.
+		if (arcFlags != null && !arcFlags.isFlagged(currentIndex, neighborIndex, goalRegion)) return;
+		// If the previously computed cost isn't lower that the currently known one, skip this neighbor.
+		// The algorithm already knows a more efficient path to reach it.
+		if (newCost >= workspace.getCost(neighborIndex)) return;
+		// Otherwise, compute a new estimate for reaching the goal via the neighbor, and record that the neighbor is
+		// reached via the current node.
+		if (neighbor == null) neighbor = indexer.nodeAt(neighborIndex);
+		final double estimate = newCost + estimateCostToGoal(neighbor);
+		workspace.reach(neighborIndex, newCost, estimate, currentIndex);
+		// Add the neighboring node to the node list to be checked later, or move it forward if it's already contained.
+		currentNodes.offer(neighborIndex, estimate);
 	}
 
 	/**
@@ -223,7 +484,7 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	 * 		   known.
 	 */
 	public List<GraphNode<ND>> getPathTo(GraphNode<ND> node) {
-		final List<GraphNode<ND>> path = getMutablePathRecursively(node);
+		final List<GraphNode<ND>> path = getMutablePath(node);
 		if (path == null) return null;
 		return Collections.unmodifiableList(path);
 	}
@@ -239,46 +500,24 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	}
 
 	/**
-	 * Reconstructs the best known path to the given node recursively.
+	 * Reconstructs the best known path to the given node by following the previous nodes back to the start.
 	 *
 	 * @param node The node to find the path to
 	 * @return the path in form of a mutable (@code ArrayList), or {@code null} if none is known.
 	 */
-	private ArrayList<GraphNode<ND>> getMutablePathRecursively(GraphNode<ND> node) {
-		// If the given node is the starting node, the end of the recursion is reached.
-		if (node.equals(start)) {
-			// Construct the mutable list that will be passed up the recursion; It will, at most, need as many slots as
-			// nodes are contained in the graph.
-			final ArrayList<GraphNode<ND>> list = new ArrayList<>(graph.getNodes().size());
-			// Add the node to the list and terminate the recursion.
-			list.add(node);
-			return list;
+	private ArrayList<GraphNode<ND>> getMutablePath(GraphNode<ND> node) {
+		int index = indexer.findIndex(node);
+		if (!workspace.isReached(index)) return null; // No path to this node is known
+		final ArrayList<GraphNode<ND>> list = new ArrayList<>();
+		while (index != SearchWorkspace.NO_PARENT) {
+			list.add(indexer.nodeAt(index));
+			index = workspace.getParent(index);
 		}
-		// Get the previous node on the path.
-		final GraphNode<ND> via = pathMap.get(node);
-		if (via == null) return null; // No path to this node is known
-		// Get the path to the previous node recursively
-		final ArrayList<GraphNode<ND>> list = getMutablePathRecursively(via);
-		if (list == null) return null; // No path to the previous node is known
-		// Add the current node to the list and pass it further up the recursion.
-		list.add(node);
+		// The nodes were added from the end of the path to the start.
+		Collections.reverse(list);
 		return list;
 	}
 
-	/**
-	 * The comparison function used to sort the node list by the estimated cost of the paths via the nodes.
-	 *
-	 * @param node1 The first of the nodes to compare
-	 * @param node2 The second of the nodes to compare
-	 * @return {@code 0} if the nodes are equal, a value less than zero if the estimated cost via {@code node1} is lower
-	 * 		   than {@code node2}, and a value higher than zero if the estimated cost via {@code node1} is higher than
-	 * 		   {@code node2}.
-	 */
-	private int compareNodes(GraphNode<ND> node1, GraphNode<ND> node2) {
-		if (node1.equals(node2)) return 0; // The nodes are the same, return 0.
-		return Double.compare(getEstimateFor(node1), getEstimateFor(node2)); // Compare the nodes' cost estimates
-	}
-
 	// -----------------------------------------------------------------------------------------------------------------
 	// Getters
 
@@ -298,7 +537,26 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	 * @return {@code true} if the algorithm has halted
 	 */
 	public boolean hasHalted() {
-		return finished || currentNodes.size() == 0;
+		return finished || currentNodes.isEmpty();
+	}
+
+	/**
+	 * Gets the number of nodes the algorithm has checked so far, meaning the number of steps in which it went
+	 * through the neighbors of a node.
+	 *
+	 * @return the number of expanded nodes
+	 */
+	public int getExpandedNodeCount() {
+		return expandedNodeCount;
+	}
+
+	/**
+	 * Gets the number of nodes the algorithm has discovered so far, including the ones it has already checked.
+	 *
+	 * @return the number of discovered nodes
+	 */
+	public int getDiscoveredNodeCount() {
+		return workspace.getReachedCount();
 	}
 
 	/**
@@ -311,41 +569,78 @@ public class AStar<ND extends AStarNodeData, ED extends JSONSerializable> {
 	}
 
 	/**
-	 * Gets the list of all nodes the algorithm has discovered and still needs to check.
+	 * Gets the list of all nodes the algorithm has discovered and still needs to check. Apart from the first node,
+	 * which has the lowest estimated cost, the list isn't ordered. The list changes along with the state of the
+	 * algorithm.
 	 *
 	 * @return the list of the current nodes
 	 */
 	public List<GraphNode<ND>> getCurrentNodes() {
-		return Collections.unmodifiableList(currentNodes);
+		return new AbstractList<>() {
+			@Override
+			public GraphNode<ND> get(int index) {
+				return indexer.nodeAt(currentNodes.get(index));
+			}
+
+			@Override
+			public int size() {
+				return currentNodes.size();
+			}
+		};
 	}
 
 	/**
-	 * Gets the map that maps each known node to the node via which they are, to the algorithm's current knowledge,
+	 * Gets a map that maps each known node to the node via which they are, to the algorithm's current knowledge,
 	 * reached most efficiently.
+	 * <br>
+	 * The map is a copy, and takes time proportional to the number of discovered nodes to create. To look up single
+	 * nodes, use {@code getPredecessor()}.
 	 *
 	 * @return the path map
 	 */
 	public Map<GraphNode<ND>, GraphNode<ND>> getPathMap() {
+		final Map<GraphNode<ND>, GraphNode<ND>> pathMap = new HashMap<>();
+		for (int i = 0; i < workspace.getReachedCount(); i++) {
+			final int index = workspace.getReached(i);
+			final int parent = workspace.getParent(index);
+			if (parent != SearchWorkspace.NO_PARENT) pathMap.put(indexer.nodeAt(index), indexer.nodeAt(parent));
+		}
 		return Collections.unmodifiableMap(pathMap);
 	}
 
 	/**
-	 * Gets the map that maps each known node to the cost of the most efficient path to them, according to the
+	 * Gets a map that maps each known node to the cost of the most efficient path to them, according to the
 	 * algorithm's current knowledge.
+	 * <br>
+	 * The map is a copy, and takes time proportional to the number of discovered nodes to create. To look up single
+	 * nodes, use {@code getCostFor()}.
 	 *
 	 * @return the cost map
 	 */
 	public Map<GraphNode<ND>, Double> getCostMap() {
+		final Map<GraphNode<ND>, Double> costMap = new HashMap<>();
+		for (int i = 0; i < workspace.getReachedCount(); i++) {
+			final int index = workspace.getReached(i);
+			costMap.put(indexer.nodeAt(index), workspace.getCost(index));
+		}
 		return Collections.unmodifiableMap(costMap);
 	}
 
 	/**
-	 * Gets the map that maps each known node to the current estimated cost to reach the goal via the shortest path
+	 * Gets a map that maps each known node to the current estimated cost to reach the goal via the shortest path
 	 * through them.
+	 * <br>
+	 * The map is a copy, and takes time proportional to the number of discovered nodes to create. To look up single
+	 * nodes, use {@code getEstimateFor()}.
 	 *
 	 * @return the estimate map
 	 */
 	public Map<GraphNode<ND>, Double> getEstimateMap() {
+		final Map<GraphNode<ND>, Double> estimateMap = new HashMap<>();
+		for (int i = 0; i < workspace.getReachedCount(); i++) {
+			final int index = workspace.getReached(i);
+			estimateMap.put(indexer.nodeAt(index), workspace.getEstimate(index));
+		}
 		return Collections.unmodifiableMap(estimateMap);
 	}
 }
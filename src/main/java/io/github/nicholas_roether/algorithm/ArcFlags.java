@@ -0,0 +1,394 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import org.jetbrains.annotations.NotNull;
+import processing.core.PVector;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Arc flags, a precomputed index that tells a search which edges it can skip.
+ * <br>
+ * The nodes of the graph are divided into regions. For each edge and each region, a flag records whether the edge
+ * lies on a shortest path to some node in that region. A search for a path to a goal in a certain region then only
+ * needs to follow the edges whose flag for that region is set, which prunes most edges leading away from the goal,
+ * without changing anything else about the search. {@code AStar} uses arc flags if they are given to it.
+ * <br>
+ * The regions can be computed from the positions of the nodes using {@code gridRegions()}, or from the structure of
+ * the graph using {@code breadthFirstRegions()}. Regions work best if they are compact and connected, and if few
+ * edges cross their borders. The flags are computed by running Dijkstra's algorithm from every node at the border of
+ * a region, so the precomputation is expensive for many or large regions.
+ * <br>
+ * Edges are identified by the indices of the nodes they connect, so the flags require a graph that indexes its nodes,
+ * and can only be used with the graph they were computed for. Of several edges between the same two nodes, the
+ * lightest one is considered. The flags are only valid as long as the graph isn't changed: they record the
+ * modification count of the graph, and {@code isFor()} rejects the graph once it has changed in any way, so that
+ * {@code AStar} refuses to use outdated flags. They need to be computed again instead.
+ *
+ * @param <ND> The node data type of the graph
+ */
+public class ArcFlags<ND extends JSONSerializable> {
+	/**
+	 * The region of nodes that don't belong to any region.
+	 */
+	public static final int NO_REGION = -1;
+
+	/**
+	 * The relative tolerance when checking whether an edge lies on a shortest path. Setting a flag too many only makes
+	 * a search check an unnecessary edge, but missing one would make it miss the shortest path.
+	 */
+	private static final double TOLERANCE = 1e-9;
+
+	/**
+	 * The graph the flags were computed for.
+	 */
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * The modification count of the graph when the flags were computed.
+	 */
+	private final long modificationCount;
+
+	private final int regionCount;
+
+	/**
+	 * The region of each node, by index.
+	 */
+	private final int[] regions;
+
+	/**
+	 * The position in the arc arrays of the first arc leaving each node. The arcs leaving the node with index
+	 * {@code i} are stored between {@code arcOffsets[i]} (inclusive) and {@code arcOffsets[i + 1]} (exclusive),
+	 * sorted by their target.
+	 */
+	private final int[] arcOffsets;
+
+	private final int[] arcTargets;
+
+	/**
+	 * The number of {@code long}s used for the flags of each arc.
+	 */
+	private final int wordsPerArc;
+
+	/**
+	 * The flags of each arc, one bit per region. The flags of arc {@code a} are stored in
+	 * {@code flags[a * wordsPerArc]} to {@code flags[(a + 1) * wordsPerArc - 1]}.
+	 */
+	private final long[] flags;
+
+	private ArcFlags(
+			GraphView<ND, ?> graph,
+			long modificationCount,
+			int regionCount,
+			int[] regions,
+			int[] arcOffsets,
+			int[] arcTargets,
+			long[] flags
+	) {
+		this.graph = graph;
+		this.modificationCount = modificationCount;
+		this.regionCount = regionCount;
+		this.regions = regions;
+		this.arcOffsets = arcOffsets;
+		this.arcTargets = arcTargets;
+		this.wordsPerArc = (regionCount + 63) / 64;
+		this.flags = flags;
+	}
+
+	/**
+	 * Computes the arc flags of the given graph for the given regions.
+	 *
+	 * @param graph The graph to compute the flags of
+	 * @param regions The region of each node, by index, between {@code 0} (inclusive) and {@code regionCount}
+	 *                (exclusive). Unused indices are ignored.
+	 * @param regionCount The number of regions
+	 * @param <ND> The node data type of the graph
+	 * @return the arc flags
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or the regions aren't valid
+	 */
+	public static <ND extends JSONSerializable> ArcFlags<ND> compute(
+			@NotNull GraphView<ND, ?> graph,
+			int @NotNull [] regions,
+			int regionCount
+	) {
+		final int nodeCount = requireIndexed(graph);
+		final long modificationCount = graph.getModificationCount();
+		if (regionCount <= 0) throw new IllegalArgumentException("The number of regions must be positive");
+		if (regions.length < nodeCount) throw new IllegalArgumentException("Every node must be assigned a region");
+		regions = Arrays.copyOf(regions, nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			if (graph.getNode(i) == null) {
+				regions[i] = NO_REGION;
+			} else if (regions[i] < 0 || regions[i] >= regionCount) {
+				throw new IllegalArgumentException("Invalid region " + regions[i] + " of node " + graph.getNode(i));
+			}
+		}
+
+		// Collect the arcs of each node, sorted by target, keeping the lightest one per target.
+		final int[] arcOffsets = new int[nodeCount + 1];
+		final int[][] targetBuffer = {new int[16]};
+		final double[][] weightBuffer = {new double[16]};
+		final int[] arcCount = {0};
+		for (int i = 0; i < nodeCount; i++) {
+			arcOffsets[i] = arcCount[0];
+			final GraphNode<ND> node = graph.getNode(i);
+			if (node == null) continue;
+			final int start = arcCount[0];
+			graph.forEachNeighbor(node, (neighbor, edgeWeight, edgeData) -> {
+				if (arcCount[0] == targetBuffer[0].length) {
+					targetBuffer[0] = Arrays.copyOf(targetBuffer[0], arcCount[0] * 2);
+					weightBuffer[0] = Arrays.copyOf(weightBuffer[0], arcCount[0] * 2);
+				}
+				targetBuffer[0][arcCount[0]] = graph.indexOf(neighbor);
+				weightBuffer[0][arcCount[0]++] = edgeWeight;
+			});
+			arcCount[0] = start + sortAndMerge(targetBuffer[0], weightBuffer[0], start, arcCount[0]);
+		}
+		final int[] arcTargets = Arrays.copyOf(targetBuffer[0], arcCount[0]);
+		final double[] arcWeights = weightBuffer[0];
+		arcOffsets[nodeCount] = arcCount[0];
+
+		final int wordsPerArc = (regionCount + 63) / 64;
+		final long[] flags = new long[arcTargets.length * wordsPerArc];
+		for (int from = 0; from < nodeCount; from++) {
+			for (int arc = arcOffsets[from]; arc < arcOffsets[from + 1]; arc++) {
+				// Every edge within a region lies on a shortest path into it, namely itself.
+				final int region = regions[arcTargets[arc]];
+				if (region == regions[from]) flags[arc * wordsPerArc + region / 64] |= 1L << (region % 64);
+			}
+		}
+
+		// Any shortest path into a region enters it through a border node for the last time, and only uses edges
+		// within the region afterwards. So it suffices to flag the edges on shortest paths to the border nodes.
+		final SearchWorkspace workspace = new SearchWorkspace(nodeCount);
+		for (int border = 0; border < nodeCount; border++) {
+			if (!isBorderNode(border, regions, arcOffsets, arcTargets)) continue;
+			final int region = regions[border];
+			final int word = region / 64;
+			final long bit = 1L << (region % 64);
+			// The graph is undirected, so the distances from the border node are also the distances to it.
+			final double[] distances = Dijkstra.distances(graph, border, workspace);
+			for (int from = 0; from < nodeCount; from++) {
+				if (distances[from] == Dijkstra.UNREACHABLE) continue;
+				for (int arc = arcOffsets[from]; arc < arcOffsets[from + 1]; arc++) {
+					final double viaCost = arcWeights[arc] + distances[arcTargets[arc]];
+					if (viaCost <= distances[from] + TOLERANCE * Math.max(1, distances[from]))
+						flags[arc * wordsPerArc + word] |= bit;
+				}
+			}
+		}
+		return new ArcFlags<>(graph, modificationCount, regionCount, regions, arcOffsets, arcTargets, flags);
+	}
+
+	/**
+	 * Divides the nodes into the cells of a square grid laid over their positions. Cells without nodes are empty
+	 * regions.
+	 *
+	 * @param graph The graph to divide
+	 * @param positionGetter A function that returns the position of a node
+	 * @param gridSize The number of cells along each side of the grid, resulting in {@code gridSize * gridSize}
+	 *                 regions
+	 * @param <ND> The node data type of the graph
+	 * @return the region of each node, by index
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or the grid size isn't positive
+	 */
+	public static <ND extends JSONSerializable> int[] gridRegions(
+			@NotNull GraphView<ND, ?> graph,
+			@NotNull Function<GraphNode<ND>, PVector> positionGetter,
+			int gridSize
+	) {
+		final int nodeCount = requireIndexed(graph);
+		if (gridSize <= 0) throw new IllegalArgumentException("The grid size must be positive");
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < nodeCount; i++) {
+			if (graph.getNode(i) == null) continue;
+			final PVector position = positionGetter.apply(graph.getNode(i));
+			minX = Math.min(minX, position.x);
+			minY = Math.min(minY, position.y);
+			maxX = Math.max(maxX, position.x);
+			maxY = Math.max(maxY, position.y);
+		}
+		final int[] regions = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			if (graph.getNode(i) == null) {
+				regions[i] = NO_REGION;
+				continue;
+			}
+			final PVector position = positionGetter.apply(graph.getNode(i));
+			final int column = cell(position.x, minX, maxX, gridSize);
+			final int row = cell(position.y, minY, maxY, gridSize);
+			regions[i] = row * gridSize + column;
+		}
+		return regions;
+	}
+
+	/**
+	 * Divides the nodes into regions of about the same size, by cutting the order in which a breadth-first search
+	 * visits them into pieces. This keeps the regions mostly connected, without needing positions.
+	 *
+	 * @param graph The graph to divide
+	 * @param regionCount The number of regions
+	 * @param <ND> The node data type of the graph
+	 * @return the region of each node, by index
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or the region count isn't positive
+	 */
+	public static <ND extends JSONSerializable> int[] breadthFirstRegions(
+			@NotNull GraphView<ND, ?> graph,
+			int regionCount
+	) {
+		final int nodeCount = requireIndexed(graph);
+		if (regionCount <= 0) throw new IllegalArgumentException("The number of regions must be positive");
+		final int[] regions = new int[nodeCount];
+		Arrays.fill(regions, NO_REGION);
+		int presentCount = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			if (graph.getNode(i) != null) presentCount++;
+		}
+
+		final ArrayDeque<Integer> queue = new ArrayDeque<>();
+		int visited = 0;
+		for (int root = 0; root < nodeCount; root++) {
+			if (graph.getNode(root) == null || regions[root] != NO_REGION) continue;
+			regions[root] = regionOfPosition(visited++, presentCount, regionCount);
+			queue.add(root);
+			while (!queue.isEmpty()) {
+				final int current = queue.poll();
+				graph.forEachNeighbor(graph.getNode(current), (neighbor, edgeWeight, edgeData) -> {
+					final int neighborIndex = graph.indexOf(neighbor);
+					if (regions[neighborIndex] != NO_REGION) return;
+					regions[neighborIndex] = NO_REGION - 1; // Mark as visited; the region is assigned when dequeued.
+					queue.add(neighborIndex);
+				});
+				if (current != root) regions[current] = regionOfPosition(visited++, presentCount, regionCount);
+			}
+		}
+		return regions;
+	}
+
+	/**
+	 * Checks whether the edge from {@code from} to {@code to} lies on a shortest path into the given region. Edges
+	 * that are unknown to the flags, because they were added afterwards, are assumed to.
+	 *
+	 * @param from The index of the node the edge leaves
+	 * @param to The index of the node the edge leads to
+	 * @param region The region
+	 * @return {@code false} if the edge can be skipped when searching for a node in the region
+	 */
+	public boolean isFlagged(int from, int to, int region) {
+		if (region == NO_REGION || from < 0 || from >= regions.length) return true;
+		// Binary search for the target among the arcs of the node.
+		int low = arcOffsets[from];
+		int high = arcOffsets[from + 1] - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final int target = arcTargets[middle];
+			if (target < to) {
+				low = middle + 1;
+			} else if (target > to) {
+				high = middle - 1;
+			} else {
+				return (flags[middle * wordsPerArc + region / 64] & (1L << (region % 64))) != 0;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the region the given node belongs to.
+	 *
+	 * @param node The node
+	 * @return the region, or {@code NO_REGION} if the node isn't part of the graph
+	 */
+	public int getRegion(GraphNode<ND> node) {
+		final int index = graph.indexOf(node);
+		if (index < 0 || index >= regions.length) return NO_REGION;
+		return regions[index];
+	}
+
+	/**
+	 * Checks whether these flags were computed for the given graph, and the graph hasn't been changed since.
+	 *
+	 * @param graph The graph to check
+	 * @return {@code true} if the flags belong to the graph in its current state
+	 */
+	public boolean isFor(GraphView<ND, ?> graph) {
+		return this.graph == graph && graph.getModificationCount() == modificationCount;
+	}
+
+	/**
+	 * Returns the number of regions.
+	 *
+	 * @return the number of regions
+	 */
+	public int getRegionCount() {
+		return regionCount;
+	}
+
+	/**
+	 * Returns the share of flags that are set, between {@code 0} and {@code 1}. The lower it is, the more edges a
+	 * search can skip.
+	 *
+	 * @return the share of set flags
+	 */
+	public double getFlagDensity() {
+		if (arcTargets.length == 0) return 0;
+		long set = 0;
+		for (long word : flags) set += Long.bitCount(word);
+		return (double) set / ((long) arcTargets.length * regionCount);
+	}
+
+	/**
+	 * Sorts the arcs in the given range by target, and merges arcs with the same target into the lightest one.
+	 *
+	 * @return the number of arcs left, which now start at {@code start}
+	 */
+	private static int sortAndMerge(int[] targets, double[] weights, int start, int end) {
+		final long[] order = new long[end - start];
+		for (int i = start; i < end; i++) order[i - start] = ((long) targets[i] << 32) | (i - start);
+		Arrays.sort(order);
+		final int[] sortedTargets = new int[order.length];
+		final double[] sortedWeights = new double[order.length];
+		int size = 0;
+		for (long entry : order) {
+			final int target = (int) (entry >>> 32);
+			final double weight = weights[start + (int) entry];
+			if (size > 0 && sortedTargets[size - 1] == target) {
+				sortedWeights[size - 1] = Math.min(sortedWeights[size - 1], weight);
+				continue;
+			}
+			sortedTargets[size] = target;
+			sortedWeights[size++] = weight;
+		}
+		System.arraycopy(sortedTargets, 0, targets, start, size);
+		System.arraycopy(sortedWeights, 0, weights, start, size);
+		return size;
+	}
+
+	private static boolean isBorderNode(int node, int[] regions, int[] arcOffsets, int[] arcTargets) {
+		if (regions[node] == NO_REGION) return false;
+		for (int arc = arcOffsets[node]; arc < arcOffsets[node + 1]; arc++) {
+			if (regions[arcTargets[arc]] != regions[node]) return true;
+		}
+		return false;
+	}
+
+	private static int cell(float value, float min, float max, int cellCount) {
+		if (max <= min) return 0;
+		return Math.min((int) ((value - min) / (max - min) * cellCount), cellCount - 1);
+	}
+
+	private static int regionOfPosition(int position, int nodeCount, int regionCount) {
+		return (int) ((long) position * regionCount / nodeCount);
+	}
+
+	private static int requireIndexed(GraphView<?, ?> graph) {
+		final int nodeCount = graph.getNodeIndexBound();
+		if (nodeCount < 0) throw new IllegalArgumentException("Arc flags require a graph that indexes its nodes");
+		return nodeCount;
+	}
+}
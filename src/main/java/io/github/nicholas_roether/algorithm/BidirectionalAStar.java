@@ -0,0 +1,472 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import io.github.nicholas_roether.graph.NeighborConsumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A variant of the A*-Algorithm that searches from both ends of the path at once: one search starts at the start
+ * node and works towards the goal, the other starts at the goal and works towards the start. Since each search only
+ * needs to cover about half of the distance, far fewer nodes are usually checked than by a single search.
+ * <br>
+ * Both searches are guided by the same symmetric estimate, half the difference between the estimated cost to the
+ * goal and the estimated cost to the start. This makes the two searches consistent with each other, so that the
+ * algorithm can stop as soon as the sum of the lowest priorities of both searches is at least the cost of the best
+ * path found so far. That path is only guaranteed to be the shortest one if the heuristic is consistent, which also
+ * makes it admissible. By default, the geometric estimate of {@code AStar.estimateCost()} is used, which is only
+ * close to consistent, so the path found may occasionally be slightly longer than the shortest one. Any
+ * {@code Heuristic} can be given instead; since it is used in both directions, it should be symmetric.
+ * <br>
+ * The two searches can optionally run on two threads. This is only supported for graphs that index their nodes
+ * themselves (see {@code GraphView.getNodeIndexBound()}); for other graphs, the searches always take turns on the
+ * calling thread. Since the graph is only read, it doesn't need to be thread-safe, but it must not be modified while
+ * the algorithm is running, and the heuristic must be safe to call from two threads at once.
+ * <br>
+ * Graphs are treated as undirected, like everywhere else in this project, so the search from the goal uses the same
+ * neighbors as the search from the start.
+ *
+ * @param <ND> The type of data stored in the graph nodes used. Must extend AStarNodeData.
+ * @param <ED> The type of data stored in the graph edges used.
+ *
+ * @see AStar
+ */
+public class BidirectionalAStar<ND extends AStarNodeData, ED extends JSONSerializable> {
+	/**
+	 * The value of {@code meetingNode} while no path has been found.
+	 */
+	private static final int NO_MEETING = -1;
+
+	/**
+	 * The graph the algorithm operates on.
+	 */
+	public final GraphView<ND, ED> graph;
+
+	/**
+	 * The node the algorithm starts from.
+	 */
+	public final GraphNode<ND> start;
+
+	/**
+	 * The node the algorithm tries to reach.
+	 */
+	public final GraphNode<ND> goal;
+
+	/**
+	 * The heuristic the symmetric estimate is computed from.
+	 */
+	private final Heuristic<ND> heuristic;
+
+	/**
+	 * Whether the two searches run on separate threads.
+	 */
+	private final boolean parallel;
+
+	/**
+	 * Maps the nodes to the indices they are stored under in the workspaces of both searches.
+	 */
+	private final NodeIndexer<ND> indexer;
+
+	/**
+	 * The search that starts at {@code start}.
+	 */
+	private final Search forward;
+
+	/**
+	 * The search that starts at {@code goal}.
+	 */
+	private final Search backward;
+
+	/**
+	 * The cost of the shortest path found so far.
+	 */
+	private volatile double bestCost = Double.MAX_VALUE;
+
+	/**
+	 * The index of the node at which the two searches meet on the shortest path found so far, or {@code NO_MEETING}.
+	 */
+	private volatile int meetingNode = NO_MEETING;
+
+	/**
+	 * Set once either search has determined that the algorithm can stop, so that the other one stops as well.
+	 */
+	private volatile boolean halted = false;
+
+	/**
+	 * Constructs an instance of the bidirectional A*-Algorithm that runs both searches on the calling thread.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 */
+	public BidirectionalAStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal) {
+		this(graph, start, goal, false);
+	}
+
+	/**
+	 * Constructs an instance of the bidirectional A*-Algorithm.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param parallel Whether to run the two searches on separate threads. Ignored if the graph doesn't index its
+	 *                 nodes.
+	 */
+	public BidirectionalAStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal, boolean parallel) {
+		this(graph, start, goal, parallel, AStar::estimateCost);
+	}
+
+	/**
+	 * Constructs an instance of the bidirectional A*-Algorithm that uses the given heuristic instead of the geometric
+	 * estimate.
+	 * <br>
+	 * Note that removing the start or end node at any time after construction, or any node while the algorithm is
+	 * running, from the graph will most likely cause the algorithm to break.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param parallel Whether to run the two searches on separate threads. Ignored if the graph doesn't index its
+	 *                 nodes.
+	 * @param heuristic The heuristic to estimate costs with
+	 * @throws IllegalArgumentException if the heuristic was computed for another graph, or the graph changed since
+	 *
+	 * @see LandmarkHeuristic
+	 */
+	public BidirectionalAStar(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			boolean parallel,
+			Heuristic<ND> heuristic
+	) {
+		this.graph = graph;
+		if (!graph.contains(start) || !graph.contains(goal))
+			throw new IllegalArgumentException("Start and end nodes must be contained in the graph");
+		this.start = start;
+		this.goal = goal;
+		if (!heuristic.isFor(graph))
+			throw new IllegalArgumentException("The heuristic must be computed for the current graph");
+		this.heuristic = heuristic;
+		indexer = new NodeIndexer<>(graph);
+		this.parallel = parallel && indexer.isIndexedGraph();
+
+		forward = new Search(start, 1);
+		backward = new Search(goal, -1);
+		forward.opposite = backward;
+		backward.opposite = forward;
+		forward.init();
+		backward.init();
+	}
+
+	/**
+	 * Finds the shortest path from {@code start} to {@code goal} in the given graph.
+	 *
+	 * @param graph The graph to search
+	 * @param start The starting node
+	 * @param goal The node to find a path to
+	 * @param parallel Whether to run the two searches on separate threads
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the found path in form of an ordered list of the nodes it goes along, or {@code null} if no path to the
+	 * 		   goal was found.
+	 */
+	public static <ND extends AStarNodeData, ED extends JSONSerializable> List<GraphNode<ND>> findPath(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			boolean parallel
+	) {
+		return new BidirectionalAStar<>(graph, start, goal, parallel).execute();
+	}
+
+	/**
+	 * Executes the algorithm and returns the path found.
+	 *
+	 * @return the found path in form of an ordered list of the nodes it goes along, or {@code null} if no path to the
+	 * 		   goal was found.
+	 */
+	public List<GraphNode<ND>> execute() {
+		if (parallel) {
+			final CompletableFuture<Void> backwardRun = CompletableFuture.runAsync(backward::run);
+			try {
+				forward.run();
+			} finally {
+				// Make sure the other thread stops, even if this one failed.
+				halted = true;
+				backwardRun.join();
+			}
+		} else {
+			while (!halted) {
+				// Advance the search with fewer open nodes, which keeps the two searches roughly the same size.
+				final Search search = forward.openNodes.size() <= backward.openNodes.size() ? forward : backward;
+				if (!search.step()) halted = true;
+			}
+		}
+		return getResult();
+	}
+
+	/**
+	 * Reconstructs the found path from the start to the goal and returns it.
+	 *
+	 * @return the path in the form of an ordered list of the nodes it visits, or {@code null} if no path to the goal is
+	 * 		   known.
+	 */
+	public List<GraphNode<ND>> getResult() {
+		final int meeting = meetingNode;
+		if (meeting == NO_MEETING) return null;
+		final ArrayList<GraphNode<ND>> path = new ArrayList<>();
+		// Follow the search from the start back from the meeting node, ...
+		for (int index = meeting; index != SearchWorkspace.NO_PARENT; index = forward.workspace.getParent(index))
+			path.add(indexer.nodeAt(index));
+		Collections.reverse(path);
+		// ... then the search from the goal onwards to the goal.
+		int index = backward.workspace.getParent(meeting);
+		for (; index != SearchWorkspace.NO_PARENT; index = backward.workspace.getParent(index))
+			path.add(indexer.nodeAt(index));
+		return Collections.unmodifiableList(path);
+	}
+
+	/**
+	 * Estimates the cost of the path from the start to the goal via the given node, minus the part of it that is
+	 * the same for all nodes. The search from the start uses this as its estimate, and the search from the goal uses
+	 * its negation, which makes the two searches consistent with each other.
+	 *
+	 * @param node The node to compute the estimate for
+	 * @return the symmetric estimate
+	 */
+	private double potential(GraphNode<ND> node) {
+		return (heuristic.estimate(node, goal) - heuristic.estimate(node, start)) / 2;
+	}
+
+	/**
+	 * Records that the two searches meet at the given node, if the path through it is shorter than the best one found
+	 * so far.
+	 */
+	private synchronized void offerMeeting(int node, double cost) {
+		if (cost >= bestCost) return;
+		bestCost = cost;
+		meetingNode = node;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Getters
+
+	/**
+	 * Checks whether the algorithm has finished, meaning it has halted and has in fact found a path to the goal.
+	 *
+	 * @return {@code true} if the algorithm has finished
+	 */
+	public boolean isFinished() {
+		return halted && meetingNode != NO_MEETING;
+	}
+
+	/**
+	 * Checks whether the algorithm has halted, either because it found the shortest path to the goal, or because it
+	 * ran out of nodes to check.
+	 *
+	 * @return {@code true} if the algorithm has halted
+	 */
+	public boolean hasHalted() {
+		return halted;
+	}
+
+	/**
+	 * Checks whether the two searches run on separate threads.
+	 *
+	 * @return {@code true} if the algorithm runs in parallel
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Gets the cost of the shortest path found so far.
+	 *
+	 * @return the cost, or {@code Double.MAX_VALUE} if no path was found
+	 */
+	public double getCost() {
+		return bestCost;
+	}
+
+	/**
+	 * Gets the number of nodes both searches together have checked so far. This corresponds to
+	 * {@code AStar.getExpandedNodeCount()}.
+	 *
+	 * @return the number of expanded nodes
+	 */
+	public int getExpandedNodeCount() {
+		return forward.expandedNodeCount + backward.expandedNodeCount;
+	}
+
+	/**
+	 * Gets the number of nodes both searches together have discovered so far. Nodes discovered by both searches are
+	 * counted twice. This corresponds to {@code AStar.getDiscoveredNodeCount()}.
+	 *
+	 * @return the number of discovered nodes
+	 */
+	public int getDiscoveredNodeCount() {
+		return forward.workspace.getReachedCount() + backward.workspace.getReachedCount();
+	}
+
+	/**
+	 * Gets the number of nodes the search from the start has checked so far.
+	 *
+	 * @return the number of nodes expanded forwards
+	 */
+	public int getForwardExpandedNodeCount() {
+		return forward.expandedNodeCount;
+	}
+
+	/**
+	 * Gets the number of nodes the search from the goal has checked so far.
+	 *
+	 * @return the number of nodes expanded backwards
+	 */
+	public int getBackwardExpandedNodeCount() {
+		return backward.expandedNodeCount;
+	}
+
+	/**
+	 * One of the two searches.
+	 */
+	private class Search implements NeighborConsumer<ND, ED> {
+		/**
+		 * The node the search starts at.
+		 */
+		final GraphNode<ND> origin;
+
+		/**
+		 * {@code 1} for the search from the start, and {@code -1} for the search from the goal; the sign of the
+		 * estimate the search uses.
+		 */
+		final int direction;
+
+		/**
+		 * The memory the search works in. The estimates it stores are the priorities of the nodes.
+		 */
+		final SearchWorkspace workspace = new SearchWorkspace();
+
+		final IndexedHeap openNodes = workspace.getOpenNodes();
+
+		/**
+		 * The cost to reach each node, stored as the bits of a double, so that the other search can read it while
+		 * this one is running. Only used if the searches run in parallel.
+		 */
+		final AtomicLongArray publishedCosts;
+
+		/**
+		 * The lowest priority of all open nodes, so that the other search can read it while this one is running.
+		 */
+		volatile double lowestPriority = 0.0;
+
+		Search opposite;
+
+		int expandedNodeCount = 0;
+
+		/**
+		 * The index of the node the search is currently checking.
+		 */
+		private int currentIndex;
+
+		/**
+		 * The cost to reach the current node, cached for the duration of a step.
+		 */
+		private double costToCurrent;
+
+		Search(GraphNode<ND> origin, int direction) {
+			this.origin = origin;
+			this.direction = direction;
+			final int indexBound = indexer.getIndexBound();
+			workspace.ensureCapacity(indexBound);
+			if (parallel) {
+				publishedCosts = new AtomicLongArray(indexBound);
+				for (int i = 0; i < indexBound; i++) publishedCosts.set(i, Double.doubleToLongBits(Double.MAX_VALUE));
+			} else {
+				publishedCosts = null;
+			}
+		}
+
+		/**
+		 * Adds the origin of the search to its open nodes. Both searches must exist at this point, so that a start
+		 * that is also the goal is recognized.
+		 */
+		void init() {
+			reach(indexer.indexOf(origin), 0.0, direction * potential(origin), SearchWorkspace.NO_PARENT);
+			lowestPriority = openNodes.peekPriority();
+		}
+
+		/**
+		 * Runs the search until the algorithm halts.
+		 */
+		void run() {
+			while (!halted) {
+				if (!step()) halted = true;
+			}
+		}
+
+		/**
+		 * Checks the open node with the lowest priority.
+		 *
+		 * @return {@code false} if the algorithm can stop
+		 */
+		boolean step() {
+			if (openNodes.isEmpty()) {
+				// Every node this search can reach has been checked, so the best path found is the shortest one.
+				lowestPriority = Double.MAX_VALUE;
+				return false;
+			}
+			// No path through an open node of either search can be shorter than the best path found, so stop.
+			if (openNodes.peekPriority() + opposite.lowestPriority >= bestCost) return false;
+
+			currentIndex = openNodes.poll();
+			expandedNodeCount++;
+			costToCurrent = workspace.getCost(currentIndex);
+			graph.forEachNeighbor(indexer.nodeAt(currentIndex), this);
+			lowestPriority = openNodes.isEmpty() ? Double.MAX_VALUE : openNodes.peekPriority();
+			return true;
+		}
+
+		@Override
+		public void accept(GraphNode<ND> neighbor, double edgeWeight, ED edgeData) {
+			final double newCost = costToCurrent + edgeWeight;
+			final int neighborIndex = indexer.indexOf(neighbor);
+			if (newCost >= workspace.getCost(neighborIndex)) return;
+			reach(neighborIndex, newCost, newCost + direction * potential(neighbor), currentIndex);
+		}
+
+		/**
+		 * Records a new best path to the given node, and checks whether the other search has already reached it.
+		 */
+		private void reach(int node, double cost, double priority, int parent) {
+			workspace.reach(node, cost, priority, parent);
+			openNodes.offer(node, priority);
+
+			final double oppositeCost;
+			if (parallel) {
+				/*
+				Each search publishes its cost before reading the one of the other search. Since both accesses are
+				volatile, at least one of the two searches sees the cost published by the other, so no meeting is
+				missed.
+				 */
+				publishedCosts.set(node, Double.doubleToLongBits(cost));
+				oppositeCost = Double.longBitsToDouble(opposite.publishedCosts.get(node));
+			} else {
+				oppositeCost = opposite.workspace.getCost(node);
+			}
+			if (oppositeCost != Double.MAX_VALUE) offerMeeting(node, cost + oppositeCost);
+		}
+	}
+}
@@ -0,0 +1,628 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A contraction hierarchy, a precomputed index of a graph that answers shortest path queries far faster than a
+ * search on the graph itself.
+ * <br>
+ * The hierarchy is built by removing, or contracting, the nodes of the graph one by one. Whenever a node is
+ * contracted, a shortcut is inserted between each pair of its neighbors whose shortest path leads through it, so
+ * that the distances between the remaining nodes stay the same. The order in which the nodes are contracted is their
+ * rank. Nodes that add few shortcuts and whose neighbors haven't been contracted yet are contracted first, which
+ * keeps the number of shortcuts low and spreads the contracted nodes evenly across the graph.
+ * <br>
+ * Every shortest path in the original graph then corresponds to a path in the graph with shortcuts that first only
+ * goes to nodes of higher rank and then only to nodes of lower rank. A query therefore runs Dijkstra's algorithm from
+ * both ends, only following edges that lead upwards, which only needs to check a tiny part of the graph. The
+ * shortcuts of the found path are then unpacked into the edges they replace.
+ * <br>
+ * The hierarchy is immutable, so queries can run on any number of threads at once. It doesn't follow changes to the
+ * graph it was built from, and needs to be rebuilt whenever the graph changes, even if only the weight of an edge
+ * changed; {@code isFor()} tells whether that is the case. It can be saved to a file using {@code write()}, and
+ * loaded again using {@code read()}.
+ *
+ * @param <ND> The node data type of the graph
+ */
+public class ContractionHierarchy<ND extends JSONSerializable> {
+	/**
+	 * The number that identifies contraction hierarchy files.
+	 */
+	private static final int MAGIC = 0x43484945;
+
+	/**
+	 * The version of the file format written by {@code write()}.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The value of {@code arcMiddles} for arcs that are edges of the original graph, rather than shortcuts.
+	 */
+	private static final int NO_MIDDLE = -1;
+
+	/**
+	 * The maximum number of nodes a witness search checks before it gives up. A witness search that gives up only
+	 * causes an unnecessary shortcut, so this trades the size of the hierarchy for the time it takes to build it.
+	 */
+	private static final int MAX_WITNESS_SETTLED = 500;
+
+	/**
+	 * The graph the hierarchy was built from, or {@code null} if it was read from a file.
+	 */
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * The modification count of the graph at the time the hierarchy was built.
+	 */
+	private final long modificationCount;
+
+	/**
+	 * The nodes, by index. Unused indices contain {@code null}.
+	 */
+	private final GraphNode<ND>[] nodes;
+
+	/**
+	 * The index of each node.
+	 */
+	private final Map<GraphNode<ND>, Integer> indices;
+
+	/**
+	 * The rank of each node, meaning the position at which it was contracted.
+	 */
+	private final int[] ranks;
+
+	/**
+	 * The position in the arc arrays of the first upward arc of each node. The upward arcs of the node with index
+	 * {@code i} are stored between {@code arcOffsets[i]} (inclusive) and {@code arcOffsets[i + 1]} (exclusive).
+	 */
+	private final int[] arcOffsets;
+
+	/**
+	 * The node each upward arc leads to, which always has a higher rank than the node it leaves.
+	 */
+	private final int[] arcTargets;
+
+	private final double[] arcWeights;
+
+	/**
+	 * The node each shortcut skips, or {@code NO_MIDDLE} for arcs that are edges of the original graph.
+	 */
+	private final int[] arcMiddles;
+
+	private ContractionHierarchy(
+			GraphView<ND, ?> graph,
+			long modificationCount,
+			GraphNode<ND>[] nodes,
+			int[] ranks,
+			int[] arcOffsets,
+			int[] arcTargets,
+			double[] arcWeights,
+			int[] arcMiddles
+	) {
+		this.graph = graph;
+		this.modificationCount = modificationCount;
+		this.nodes = nodes;
+		this.ranks = ranks;
+		this.arcOffsets = arcOffsets;
+		this.arcTargets = arcTargets;
+		this.arcWeights = arcWeights;
+		this.arcMiddles = arcMiddles;
+		indices = new HashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i] != null) indices.put(nodes[i], i);
+		}
+	}
+
+	/**
+	 * Builds the contraction hierarchy of the given graph.
+	 *
+	 * @param graph The graph to build the hierarchy of
+	 * @param <ND> The node data type of the graph
+	 * @return the hierarchy
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes
+	 */
+	@SuppressWarnings("unchecked")
+	public static <ND extends JSONSerializable> ContractionHierarchy<ND> build(@NotNull GraphView<ND, ?> graph) {
+		final int nodeCount = graph.getNodeIndexBound();
+		if (nodeCount < 0)
+			throw new IllegalArgumentException("Contraction hierarchies require a graph that indexes its nodes");
+		final long modificationCount = graph.getModificationCount();
+		final GraphNode<ND>[] nodes = new GraphNode[nodeCount];
+		for (int i = 0; i < nodeCount; i++) nodes[i] = graph.getNode(i);
+		return new Builder<>(graph, modificationCount, nodes).build();
+	}
+
+	/**
+	 * Finds the shortest path between the given nodes.
+	 *
+	 * @param from The node the path starts at
+	 * @param to The node the path ends at
+	 * @return the path in form of an ordered list of the nodes it goes along, or {@code null} if there is no path
+	 * @throws IllegalArgumentException if one of the nodes isn't part of the hierarchy
+	 */
+	public List<GraphNode<ND>> findPath(GraphNode<ND> from, GraphNode<ND> to) {
+		final int source = requireIndex(from);
+		final int target = requireIndex(to);
+		final SearchWorkspace forward = SearchWorkspace.acquire();
+		final SearchWorkspace backward = SearchWorkspace.acquire();
+		try {
+			final int meeting = search(source, target, forward, backward);
+			if (meeting < 0) return null;
+
+			// The path in the hierarchy goes up from the source to the meeting node, then down to the target.
+			final ArrayList<Integer> upwardPath = new ArrayList<>();
+			for (int node = meeting; node != SearchWorkspace.NO_PARENT; node = forward.getParent(node))
+				upwardPath.add(node);
+			Collections.reverse(upwardPath);
+			for (int node = backward.getParent(meeting); node != SearchWorkspace.NO_PARENT; node = backward.getParent(node))
+				upwardPath.add(node);
+
+			final ArrayList<GraphNode<ND>> path = new ArrayList<>();
+			path.add(nodes[source]);
+			for (int i = 1; i < upwardPath.size(); i++) unpack(upwardPath.get(i - 1), upwardPath.get(i), path);
+			return Collections.unmodifiableList(path);
+		} finally {
+			SearchWorkspace.release(backward);
+			SearchWorkspace.release(forward);
+		}
+	}
+
+	/**
+	 * Finds the cost of the shortest path between the given nodes. This is slightly faster than {@code findPath()},
+	 * since the shortcuts don't need to be unpacked.
+	 *
+	 * @param from The node the path starts at
+	 * @param to The node the path ends at
+	 * @return the cost of the shortest path, or {@code Double.MAX_VALUE} if there is no path
+	 * @throws IllegalArgumentException if one of the nodes isn't part of the hierarchy
+	 */
+	public double getDistance(GraphNode<ND> from, GraphNode<ND> to) {
+		final int source = requireIndex(from);
+		final int target = requireIndex(to);
+		final SearchWorkspace forward = SearchWorkspace.acquire();
+		final SearchWorkspace backward = SearchWorkspace.acquire();
+		try {
+			final int meeting = search(source, target, forward, backward);
+			if (meeting < 0) return Double.MAX_VALUE;
+			return forward.getCost(meeting) + backward.getCost(meeting);
+		} finally {
+			SearchWorkspace.release(backward);
+			SearchWorkspace.release(forward);
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm upwards from both the source and the target, taking turns, until neither search can
+	 * improve the shortest path found anymore.
+	 *
+	 * @return the node at which the two searches meet on the shortest path, or {@code -1} if there is no path
+	 */
+	private int search(int source, int target, SearchWorkspace forward, SearchWorkspace backward) {
+		final IndexedHeap forwardOpen = forward.getOpenNodes();
+		final IndexedHeap backwardOpen = backward.getOpenNodes();
+		forward.reach(source, 0.0, 0.0, SearchWorkspace.NO_PARENT);
+		forwardOpen.offer(source, 0.0);
+		backward.reach(target, 0.0, 0.0, SearchWorkspace.NO_PARENT);
+		backwardOpen.offer(target, 0.0);
+
+		double bestCost = source == target ? 0.0 : Double.MAX_VALUE;
+		int meeting = source == target ? source : -1;
+		boolean forwardTurn = true;
+		while (true) {
+			// Unlike a regular bidirectional search, each search has to continue until its own lowest cost exceeds
+			// the best path, since the meeting node is the highest node on the path, not the middle.
+			final boolean forwardDone = forwardOpen.isEmpty() || forwardOpen.peekPriority() >= bestCost;
+			final boolean backwardDone = backwardOpen.isEmpty() || backwardOpen.peekPriority() >= bestCost;
+			if (forwardDone && backwardDone) break;
+			if (forwardDone) forwardTurn = false;
+			else if (backwardDone) forwardTurn = true;
+
+			final SearchWorkspace workspace = forwardTurn ? forward : backward;
+			final SearchWorkspace opposite = forwardTurn ? backward : forward;
+			final IndexedHeap openNodes = workspace.getOpenNodes();
+			final int current = openNodes.poll();
+			final double cost = workspace.getCost(current);
+			for (int arc = arcOffsets[current]; arc < arcOffsets[current + 1]; arc++) {
+				final int neighbor = arcTargets[arc];
+				final double newCost = cost + arcWeights[arc];
+				if (newCost >= workspace.getCost(neighbor)) continue;
+				workspace.reach(neighbor, newCost, newCost, current);
+				openNodes.offer(neighbor, newCost);
+				if (opposite.isReached(neighbor) && newCost + opposite.getCost(neighbor) < bestCost) {
+					bestCost = newCost + opposite.getCost(neighbor);
+					meeting = neighbor;
+				}
+			}
+			forwardTurn = !forwardTurn;
+		}
+		return meeting;
+	}
+
+	/**
+	 * Replaces the arc between the given nodes by the edges of the original graph it stands for, and appends the
+	 * nodes along them, excluding {@code from}, to the given path.
+	 */
+	private void unpack(int from, int to, List<GraphNode<ND>> path) {
+		final ArrayDeque<int[]> pending = new ArrayDeque<>();
+		pending.push(new int[] {from, to});
+		while (!pending.isEmpty()) {
+			final int[] arc = pending.pop();
+			final int middle = arcMiddles[findArc(arc[0], arc[1])];
+			if (middle == NO_MIDDLE) {
+				path.add(nodes[arc[1]]);
+				continue;
+			}
+			// Handle the first half of the shortcut first, so that the nodes are appended in order.
+			pending.push(new int[] {middle, arc[1]});
+			pending.push(new int[] {arc[0], middle});
+		}
+	}
+
+	/**
+	 * Finds the upward arc between the given nodes, which leaves whichever of them has the lower rank.
+	 */
+	private int findArc(int node1, int node2) {
+		final int lower = ranks[node1] < ranks[node2] ? node1 : node2;
+		final int higher = lower == node1 ? node2 : node1;
+		for (int arc = arcOffsets[lower]; arc < arcOffsets[lower + 1]; arc++) {
+			if (arcTargets[arc] == higher) return arc;
+		}
+		throw new IllegalStateException("The hierarchy contains no arc between nodes " + node1 + " and " + node2);
+	}
+
+	private int requireIndex(GraphNode<ND> node) {
+		final Integer index = indices.get(node);
+		if (index == null) throw new IllegalArgumentException("The node " + node + " isn't part of the hierarchy");
+		return index;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Getters
+
+	/**
+	 * Checks whether this hierarchy was built from the given graph, and the graph hasn't changed since, not even the
+	 * weight of an edge. Hierarchies that were read from a file can't tell which graph they belong to, so this always
+	 * returns {@code false} for them.
+	 *
+	 * @param graph The graph to check
+	 * @return {@code true} if the hierarchy is up to date for the graph
+	 */
+	public boolean isFor(GraphView<ND, ?> graph) {
+		return graph != null && graph == this.graph && graph.getModificationCount() == modificationCount;
+	}
+
+	/**
+	 * Checks whether the given node is part of this hierarchy.
+	 *
+	 * @param node The node to check
+	 * @return {@code true} if the node is contained
+	 */
+	public boolean contains(GraphNode<ND> node) {
+		return indices.containsKey(node);
+	}
+
+	/**
+	 * Gets the rank of the given node, meaning the position at which it was contracted. Nodes of higher rank are
+	 * more important for shortest paths.
+	 *
+	 * @param node The node to get the rank of
+	 * @return the rank
+	 * @throws IllegalArgumentException if the node isn't part of the hierarchy
+	 */
+	public int getRank(GraphNode<ND> node) {
+		return ranks[requireIndex(node)];
+	}
+
+	/**
+	 * Returns the number of nodes in this hierarchy.
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return indices.size();
+	}
+
+	/**
+	 * Returns the number of upward arcs in this hierarchy, including shortcuts.
+	 *
+	 * @return the number of arcs
+	 */
+	public int getArcCount() {
+		return arcTargets.length;
+	}
+
+	/**
+	 * Returns the number of shortcuts that were inserted while building this hierarchy.
+	 *
+	 * @return the number of shortcuts
+	 */
+	public int getShortcutCount() {
+		int count = 0;
+		for (int middle : arcMiddles) {
+			if (middle != NO_MIDDLE) count++;
+		}
+		return count;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Persistence
+
+	/**
+	 * Writes this hierarchy to the given file. Nodes are stored by name, so that they can be found again when the
+	 * hierarchy is read.
+	 *
+	 * @param path The file to write to
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(@NotNull Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			IndexFiles.writeHeader(out, MAGIC, FORMAT_VERSION);
+			IndexFiles.writeNodes(out, nodes);
+			out.writeInt(arcTargets.length);
+			IndexFiles.writeInts(out, ranks);
+			IndexFiles.writeInts(out, arcOffsets);
+			IndexFiles.writeInts(out, arcTargets);
+			IndexFiles.writeDoubles(out, arcWeights);
+			IndexFiles.writeInts(out, arcMiddles);
+		}
+	}
+
+	/**
+	 * Reads a hierarchy from a file written by {@code write()}.
+	 *
+	 * @param path The file to read from
+	 * @param nodeResolver A function that returns the node with the given name, like {@code Graph.getNode()}
+	 * @param <ND> The node data type of the graph
+	 * @return the hierarchy
+	 * @throws IOException if the file can't be read, isn't a valid hierarchy file, or contains a node the resolver
+	 * 					   doesn't know
+	 */
+	public static <ND extends JSONSerializable> ContractionHierarchy<ND> read(
+			@NotNull Path path,
+			@NotNull Function<String, GraphNode<ND>> nodeResolver
+	) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			IndexFiles.readHeader(in, MAGIC, FORMAT_VERSION, "contraction hierarchy");
+			final GraphNode<ND>[] nodes = IndexFiles.readNodes(in, nodeResolver);
+			final int arcCount = IndexFiles.readCount(in);
+			final int[] ranks = IndexFiles.readInts(in, nodes.length);
+			final int[] arcOffsets = IndexFiles.readInts(in, nodes.length + 1);
+			final int[] arcTargets = IndexFiles.readInts(in, arcCount);
+			final double[] arcWeights = IndexFiles.readDoubles(in, arcCount);
+			final int[] arcMiddles = IndexFiles.readInts(in, arcCount);
+			return new ContractionHierarchy<>(null, 0, nodes, ranks, arcOffsets, arcTargets, arcWeights, arcMiddles);
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Construction
+
+	/**
+	 * Contracts the nodes of a graph one by one and collects the resulting upward arcs.
+	 */
+	private static class Builder<ND extends JSONSerializable> {
+		private final GraphView<ND, ?> graph;
+
+		private final long modificationCount;
+
+		private final GraphNode<ND>[] nodes;
+
+		/**
+		 * The arcs between the nodes that haven't been contracted yet, including the shortcuts inserted so far. Once a
+		 * node is contracted, its arcs don't change anymore, and are exactly its upward arcs.
+		 */
+		private final ArcList[] arcs;
+
+		/**
+		 * The number of neighbors of each node that have already been contracted.
+		 */
+		private final int[] contractedNeighbors;
+
+		private final int[] ranks;
+
+		/**
+		 * The memory the witness searches work in.
+		 */
+		private final SearchWorkspace witnessWorkspace;
+
+		Builder(GraphView<ND, ?> graph, long modificationCount, GraphNode<ND>[] nodes) {
+			this.graph = graph;
+			this.modificationCount = modificationCount;
+			this.nodes = nodes;
+			final int nodeCount = nodes.length;
+			arcs = new ArcList[nodeCount];
+			contractedNeighbors = new int[nodeCount];
+			ranks = new int[nodeCount];
+			witnessWorkspace = new SearchWorkspace(nodeCount);
+			for (int i = 0; i < nodeCount; i++) {
+				if (nodes[i] == null) continue;
+				final ArcList list = new ArcList();
+				final int index = i;
+				graph.forEachNeighbor(nodes[i], (neighbor, edgeWeight, edgeData) -> {
+					final int neighborIndex = graph.indexOf(neighbor);
+					if (neighborIndex != index) list.offer(neighborIndex, edgeWeight, NO_MIDDLE);
+				});
+				arcs[i] = list;
+			}
+		}
+
+		ContractionHierarchy<ND> build() {
+			final int nodeCount = nodes.length;
+			final IndexedHeap queue = new IndexedHeap();
+			for (int i = 0; i < nodeCount; i++) {
+				if (nodes[i] != null) queue.offer(i, priority(i));
+			}
+
+			int rank = 0;
+			while (!queue.isEmpty()) {
+				final int node = queue.poll();
+				// The priority may be outdated, since the neighborhood of the node has changed since it was computed.
+				// If the node isn't the least important one anymore, put it back.
+				final double priority = priority(node);
+				if (!queue.isEmpty() && priority > queue.peekPriority()) {
+					queue.offer(node, priority);
+					continue;
+				}
+				contract(node, false);
+				ranks[node] = rank++;
+				final ArcList nodeArcs = arcs[node];
+				for (int i = 0; i < nodeArcs.size; i++) queue.offer(nodeArcs.targets[i], priority(nodeArcs.targets[i]));
+			}
+			for (int i = 0; i < nodeCount; i++) {
+				if (nodes[i] == null) ranks[i] = -1;
+			}
+
+			// Collect the arcs each node had when it was contracted, which all lead to nodes of higher rank.
+			final int[] arcOffsets = new int[nodeCount + 1];
+			for (int i = 0; i < nodeCount; i++) arcOffsets[i + 1] = arcOffsets[i] + (arcs[i] == null ? 0 : arcs[i].size);
+			final int arcCount = arcOffsets[nodeCount];
+			final int[] arcTargets = new int[arcCount];
+			final double[] arcWeights = new double[arcCount];
+			final int[] arcMiddles = new int[arcCount];
+			for (int i = 0; i < nodeCount; i++) {
+				if (arcs[i] == null) continue;
+				System.arraycopy(arcs[i].targets, 0, arcTargets, arcOffsets[i], arcs[i].size);
+				System.arraycopy(arcs[i].weights, 0, arcWeights, arcOffsets[i], arcs[i].size);
+				System.arraycopy(arcs[i].middles, 0, arcMiddles, arcOffsets[i], arcs[i].size);
+			}
+			return new ContractionHierarchy<>(
+					graph,
+					modificationCount,
+					nodes,
+					ranks,
+					arcOffsets,
+					arcTargets,
+					arcWeights,
+					arcMiddles
+			);
+		}
+
+		/**
+		 * Computes how early the given node should be contracted; nodes with lower priorities are contracted first.
+		 * This is the number of shortcuts contracting the node would add minus the number of arcs it would remove,
+		 * plus the number of its neighbors that have already been contracted.
+		 */
+		private double priority(int node) {
+			return contract(node, true) - arcs[node].size + contractedNeighbors[node];
+		}
+
+		/**
+		 * Contracts the given node, inserting a shortcut between each pair of its neighbors whose shortest path leads
+		 * through it.
+		 *
+		 * @param node The node to contract
+		 * @param simulate If {@code true}, only count the shortcuts without changing anything
+		 * @return the number of shortcuts needed
+		 */
+		private int contract(int node, boolean simulate) {
+			final ArcList nodeArcs = arcs[node];
+			int shortcuts = 0;
+			for (int i = 0; i < nodeArcs.size; i++) {
+				final int from = nodeArcs.targets[i];
+				// Search for paths that avoid the node to all neighbors after this one, so each pair is checked once.
+				double maxCost = 0;
+				for (int j = i + 1; j < nodeArcs.size; j++)
+					maxCost = Math.max(maxCost, nodeArcs.weights[i] + nodeArcs.weights[j]);
+				if (i + 1 < nodeArcs.size) witnessSearch(from, node, maxCost);
+
+				for (int j = i + 1; j < nodeArcs.size; j++) {
+					final int to = nodeArcs.targets[j];
+					final double viaCost = nodeArcs.weights[i] + nodeArcs.weights[j];
+					if (witnessWorkspace.getCost(to) <= viaCost) continue; // There is a witness; no shortcut needed.
+					shortcuts++;
+					if (simulate) continue;
+					arcs[from].offer(to, viaCost, node);
+					arcs[to].offer(from, viaCost, node);
+				}
+			}
+			if (simulate) return shortcuts;
+
+			for (int i = 0; i < nodeArcs.size; i++) {
+				final int neighbor = nodeArcs.targets[i];
+				arcs[neighbor].remove(node);
+				contractedNeighbors[neighbor]++;
+			}
+			return shortcuts;
+		}
+
+		/**
+		 * Runs Dijkstra's algorithm from the given node on the nodes that haven't been contracted yet, ignoring the
+		 * given node, and stopping once the costs exceed the given maximum. The results are left in
+		 * {@code witnessWorkspace}.
+		 */
+		private void witnessSearch(int source, int ignored, double maxCost) {
+			final SearchWorkspace workspace = witnessWorkspace;
+			final IndexedHeap openNodes = workspace.getOpenNodes();
+			workspace.reset();
+			workspace.reach(source, 0.0, 0.0, SearchWorkspace.NO_PARENT);
+			openNodes.offer(source, 0.0);
+			int settled = 0;
+			while (!openNodes.isEmpty() && openNodes.peekPriority() <= maxCost && settled++ < MAX_WITNESS_SETTLED) {
+				final int current = openNodes.poll();
+				final double cost = workspace.getCost(current);
+				final ArcList currentArcs = arcs[current];
+				for (int i = 0; i < currentArcs.size; i++) {
+					final int neighbor = currentArcs.targets[i];
+					if (neighbor == ignored) continue;
+					final double newCost = cost + currentArcs.weights[i];
+					if (newCost >= workspace.getCost(neighbor)) continue;
+					workspace.reach(neighbor, newCost, newCost, current);
+					openNodes.offer(neighbor, newCost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A growable list of the arcs leaving a node, with at most one arc per target.
+	 */
+	private static class ArcList {
+		int[] targets = new int[4];
+		double[] weights = new double[4];
+		int[] middles = new int[4];
+		int size = 0;
+
+		/**
+		 * Adds an arc to the given target, or lowers the weight of the existing one if the new arc is lighter.
+		 */
+		void offer(int target, double weight, int middle) {
+			for (int i = 0; i < size; i++) {
+				if (targets[i] != target) continue;
+				if (weight < weights[i]) {
+					weights[i] = weight;
+					middles[i] = middle;
+				}
+				return;
+			}
+			if (size == targets.length) {
+				targets = Arrays.copyOf(targets, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+				middles = Arrays.copyOf(middles, size * 2);
+			}
+			targets[size] = target;
+			weights[size] = weight;
+			middles[size++] = middle;
+		}
+
+		void remove(int target) {
+			for (int i = 0; i < size; i++) {
+				if (targets[i] != target) continue;
+				// Move the last arc into the gap; the order of the arcs doesn't matter.
+				size--;
+				targets[i] = targets[size];
+				weights[i] = weights[size];
+				middles[i] = middles[size];
+				return;
+			}
+		}
+	}
+}
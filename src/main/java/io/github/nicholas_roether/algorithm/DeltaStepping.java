@@ -0,0 +1,448 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNeighbor;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Computes the shortest paths from one node to all other nodes of a graph on many threads at once, using the
+ * delta-stepping algorithm.
+ * <br>
+ * Dijkstra's algorithm checks one node at a time, in order of their distance. Delta-stepping instead groups the nodes
+ * into buckets of distances of width {@code delta}, and checks all nodes of the lowest non-empty bucket at once, in
+ * parallel. Edges not heavier than {@code delta}, called light edges, can lead back into the same bucket, so they are
+ * relaxed repeatedly until the bucket stays empty. Heavy edges always lead to later buckets, so they are only relaxed
+ * once per bucket. A small {@code delta} approaches Dijkstra's algorithm, with little parallelism, while a large one
+ * approaches the Bellman-Ford algorithm, with a lot of redundant work.
+ * <br>
+ * The distances are updated concurrently using atomic operations. Parents aren't tracked during the search, since
+ * concurrent updates of the distance and parent of a node would have to be synchronized; instead, they are computed
+ * in a final parallel pass over all nodes, picking any neighbor through which the final distance is achieved.
+ * <br>
+ * The adjacency of the graph is copied into flat arrays when an instance is constructed, with the light edges of each
+ * node before its heavy ones, so an instance can be used for any number of sources, and even from several threads at
+ * once, but doesn't notice changes to the graph.
+ *
+ * @param <ND> The node data type of the graph
+ *
+ * @see ShortestPathTree
+ */
+public class DeltaStepping<ND extends JSONSerializable> {
+	/**
+	 * The number of nodes below which a batch of nodes is relaxed on a single thread.
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 256;
+
+	/**
+	 * The bits of {@code ShortestPathTree.UNREACHABLE}. For non-negative doubles, the order of the bits is the same
+	 * as the order of the values, so distances can be compared and updated as {@code long}s.
+	 */
+	private static final long UNREACHABLE_BITS = Double.doubleToLongBits(ShortestPathTree.UNREACHABLE);
+
+	/**
+	 * The graph the paths are computed on.
+	 */
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * The pool the relaxations run on.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The width of the buckets.
+	 */
+	private final double delta;
+
+	/**
+	 * The position in the arc arrays of the first arc leaving each node. The arcs leaving the node with index
+	 * {@code i} are stored between {@code arcOffsets[i]} (inclusive) and {@code arcOffsets[i + 1]} (exclusive).
+	 */
+	private final int[] arcOffsets;
+
+	/**
+	 * The position in the arc arrays of the first heavy arc leaving each node.
+	 */
+	private final int[] heavyOffsets;
+
+	private final int[] arcTargets;
+
+	private final double[] arcWeights;
+
+	/**
+	 * Prepares the computation of shortest paths in the given graph on the common pool, choosing {@code delta} as the
+	 * average edge weight.
+	 *
+	 * @param graph The graph to compute paths in
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or contains negative edge weights
+	 */
+	public DeltaStepping(@NotNull GraphView<ND, ?> graph) {
+		this(graph, ForkJoinPool.commonPool(), Double.NaN);
+	}
+
+	/**
+	 * Prepares the computation of shortest paths in the given graph.
+	 *
+	 * @param graph The graph to compute paths in
+	 * @param pool The pool to run the relaxations on
+	 * @param delta The width of the buckets, or {@code Double.NaN} to use the average edge weight
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, contains negative edge weights, or
+	 * 								    {@code delta} isn't positive
+	 */
+	public DeltaStepping(@NotNull GraphView<ND, ?> graph, @NotNull ForkJoinPool pool, double delta) {
+		final int nodeCount = graph.getNodeIndexBound();
+		if (nodeCount < 0) throw new IllegalArgumentException("Delta-stepping requires a graph that indexes its nodes");
+		this.graph = graph;
+		this.pool = pool;
+
+		int[] targets = new int[16];
+		double[] weights = new double[16];
+		arcOffsets = new int[nodeCount + 1];
+		int arcCount = 0;
+		double weightSum = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			arcOffsets[i] = arcCount;
+			final GraphNode<ND> node = graph.getNode(i);
+			if (node == null) continue;
+			for (GraphNeighbor<ND, ?> neighbor : graph.getNeighbors(node)) {
+				if (neighbor.edgeWeight < 0)
+					throw new IllegalArgumentException("Delta-stepping doesn't support negative edge weights");
+				if (arcCount == targets.length) {
+					targets = Arrays.copyOf(targets, arcCount * 2);
+					weights = Arrays.copyOf(weights, arcCount * 2);
+				}
+				targets[arcCount] = graph.indexOf(neighbor.node);
+				weights[arcCount++] = neighbor.edgeWeight;
+				weightSum += neighbor.edgeWeight;
+			}
+		}
+		arcOffsets[nodeCount] = arcCount;
+
+		if (Double.isNaN(delta)) delta = arcCount == 0 ? 1 : Math.max(weightSum / arcCount, Double.MIN_NORMAL);
+		if (!(delta > 0)) throw new IllegalArgumentException("Delta must be positive");
+		this.delta = delta;
+
+		// Move the light arcs of each node in front of its heavy ones.
+		arcTargets = new int[arcCount];
+		arcWeights = new double[arcCount];
+		heavyOffsets = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			int position = arcOffsets[i];
+			for (int arc = arcOffsets[i]; arc < arcOffsets[i + 1]; arc++) {
+				if (weights[arc] > delta) continue;
+				arcTargets[position] = targets[arc];
+				arcWeights[position++] = weights[arc];
+			}
+			heavyOffsets[i] = position;
+			for (int arc = arcOffsets[i]; arc < arcOffsets[i + 1]; arc++) {
+				if (weights[arc] <= delta) continue;
+				arcTargets[position] = targets[arc];
+				arcWeights[position++] = weights[arc];
+			}
+		}
+	}
+
+	/**
+	 * Computes the shortest paths from the given node to all nodes of the graph.
+	 *
+	 * @param source The node the paths start at
+	 * @return the shortest paths
+	 * @throws IllegalArgumentException if the node isn't part of the graph
+	 */
+	public ShortestPathTree<ND> compute(@NotNull GraphNode<ND> source) {
+		final int sourceIndex = graph.indexOf(source);
+		if (sourceIndex < 0 || sourceIndex >= heavyOffsets.length)
+			throw new IllegalArgumentException("The source must be contained in the graph");
+		return new Run(sourceIndex).execute();
+	}
+
+	/**
+	 * Returns the width of the buckets.
+	 *
+	 * @return delta
+	 */
+	public double getDelta() {
+		return delta;
+	}
+
+	/**
+	 * The state of a single computation.
+	 */
+	private class Run {
+		private final int source;
+
+		/**
+		 * The best known distance of each node, stored as the bits of a double.
+		 */
+		private final AtomicLongArray distances;
+
+		/**
+		 * The nodes in each bucket, by the number of the bucket. Only non-empty buckets are stored, so that the search
+		 * can go straight to the next one, no matter how far apart the distances are. A node may be contained in
+		 * several buckets, or several times in the same one; only the entry in the bucket of its current distance
+		 * counts.
+		 */
+		private final TreeMap<Integer, IntList> buckets = new TreeMap<>();
+
+		/**
+		 * The batch each node was last added to, so that nodes aren't checked twice in the same batch.
+		 */
+		private final int[] batchStamps;
+
+		private int batch = 0;
+
+		/**
+		 * The nodes whose distance was lowered by the relaxations of the current batch, collected by the tasks.
+		 */
+		private final ConcurrentLinkedQueue<IntList> improvedNodes = new ConcurrentLinkedQueue<>();
+
+		Run(int source) {
+			this.source = source;
+			final int nodeCount = heavyOffsets.length;
+			distances = new AtomicLongArray(nodeCount);
+			for (int i = 0; i < nodeCount; i++) distances.set(i, UNREACHABLE_BITS);
+			batchStamps = new int[nodeCount];
+		}
+
+		ShortestPathTree<ND> execute() {
+			distances.set(source, Double.doubleToLongBits(0.0));
+			addToBucket(source, 0.0);
+
+			// Relaxations never lead to earlier buckets, so the lowest non-empty bucket is always the next one.
+			while (!buckets.isEmpty()) {
+				final int bucket = buckets.firstKey();
+				// All nodes that were checked from this bucket, whose heavy edges are relaxed once it is settled.
+				final IntList settled = new IntList();
+				IntList entries;
+				while ((entries = buckets.remove(bucket)) != null) {
+					final IntList batchNodes = takeBatch(bucket, entries);
+					settled.addAll(batchNodes);
+					relax(batchNodes, true);
+				}
+				relax(settled, false);
+			}
+			return buildTree();
+		}
+
+		/**
+		 * Picks the nodes out of the entries removed from the given bucket whose distance still belongs to it, skipping
+		 * duplicates.
+		 */
+		private IntList takeBatch(int bucket, IntList entries) {
+			batch++;
+			final IntList batchNodes = new IntList();
+			for (int i = 0; i < entries.size; i++) {
+				final int node = entries.values[i];
+				if (batchStamps[node] == batch || bucketOf(distance(node)) != bucket) continue;
+				batchStamps[node] = batch;
+				batchNodes.add(node);
+			}
+			return batchNodes;
+		}
+
+		/**
+		 * Relaxes either the light or the heavy edges of the given nodes, in parallel if there are enough of them, and
+		 * puts the nodes whose distance was lowered into their new buckets.
+		 */
+		private void relax(IntList nodes, boolean light) {
+			final RelaxTask task = new RelaxTask(nodes.values, 0, nodes.size, light);
+			if (nodes.size <= SEQUENTIAL_THRESHOLD) task.compute();
+			else pool.invoke(task);
+
+			IntList improved;
+			while ((improved = improvedNodes.poll()) != null) {
+				for (int i = 0; i < improved.size; i++) addToBucket(improved.values[i], distance(improved.values[i]));
+			}
+		}
+
+		private void addToBucket(int node, double distance) {
+			buckets.computeIfAbsent(bucketOf(distance), bucket -> new IntList()).add(node);
+		}
+
+		private int bucketOf(double distance) {
+			return (int) Math.min(distance / delta, Integer.MAX_VALUE - 1);
+		}
+
+		private double distance(int node) {
+			return Double.longBitsToDouble(distances.get(node));
+		}
+
+		/**
+		 * Lowers the distance of the given node to the given value, unless it is already at least as low.
+		 *
+		 * @return {@code true} if the distance was lowered
+		 */
+		private boolean lowerDistance(int node, double distance) {
+			final long bits = Double.doubleToLongBits(distance);
+			long current = distances.get(node);
+			while (bits < current) {
+				if (distances.compareAndSet(node, current, bits)) return true;
+				current = distances.get(node);
+			}
+			return false;
+		}
+
+		/**
+		 * Copies the final distances into a plain array, and chooses a parent for every reachable node.
+		 */
+		private ShortestPathTree<ND> buildTree() {
+			final int nodeCount = heavyOffsets.length;
+			final double[] finalDistances = new double[nodeCount];
+			for (int i = 0; i < nodeCount; i++) finalDistances[i] = distance(i);
+			final int[] parents = new int[nodeCount];
+			pool.invoke(new ParentTask(finalDistances, parents, 0, nodeCount));
+
+			/*
+			A node whose distance is only achieved through neighbors at the same distance, meaning through edges of
+			weight zero, has no parent yet, since picking any of them could create a cycle. These are resolved one
+			layer at a time, starting from the nodes that already have a parent; this is rare, so it is done
+			sequentially.
+			 */
+			final IntList unresolved = new IntList();
+			for (int i = 0; i < nodeCount; i++) {
+				if (i != source && parents[i] == ShortestPathTree.NO_PARENT
+						&& finalDistances[i] != ShortestPathTree.UNREACHABLE) unresolved.add(i);
+			}
+			boolean changed = true;
+			while (unresolved.size > 0 && changed) {
+				changed = false;
+				int remaining = 0;
+				for (int i = 0; i < unresolved.size; i++) {
+					final int node = unresolved.values[i];
+					final int parent = findResolvedTie(node, finalDistances, parents);
+					if (parent >= 0) {
+						parents[node] = parent;
+						changed = true;
+					} else {
+						unresolved.values[remaining++] = node;
+					}
+				}
+				unresolved.size = remaining;
+			}
+			return new ShortestPathTree<>(graph, source, finalDistances, parents);
+		}
+
+		/**
+		 * Finds a neighbor of the given node at the same distance that already has a parent, or is the source.
+		 */
+		private int findResolvedTie(int node, double[] finalDistances, int[] parents) {
+			for (int arc = arcOffsets[node]; arc < arcOffsets[node + 1]; arc++) {
+				final int neighbor = arcTargets[arc];
+				if (finalDistances[neighbor] + arcWeights[arc] != finalDistances[node]) continue;
+				if (neighbor == source || parents[neighbor] != ShortestPathTree.NO_PARENT) return neighbor;
+			}
+			return -1;
+		}
+
+		/**
+		 * Relaxes the light or heavy edges of a range of nodes, splitting the range among several tasks if it is large.
+		 */
+		@SuppressWarnings("serial")
+		private class RelaxTask extends RecursiveAction {
+			private final int[] nodes;
+			private final int from;
+			private final int to;
+			private final boolean light;
+
+			RelaxTask(int[] nodes, int from, int to, boolean light) {
+				this.nodes = nodes;
+				this.from = from;
+				this.to = to;
+				this.light = light;
+			}
+
+			@Override
+			protected void compute() {
+				if (to - from > SEQUENTIAL_THRESHOLD) {
+					final int middle = (from + to) >>> 1;
+					invokeAll(new RelaxTask(nodes, from, middle, light), new RelaxTask(nodes, middle, to, light));
+					return;
+				}
+				final IntList improved = new IntList();
+				for (int i = from; i < to; i++) {
+					final int node = nodes[i];
+					final double distance = distance(node);
+					final int start = light ? arcOffsets[node] : heavyOffsets[node];
+					final int end = light ? heavyOffsets[node] : arcOffsets[node + 1];
+					for (int arc = start; arc < end; arc++) {
+						if (lowerDistance(arcTargets[arc], distance + arcWeights[arc])) improved.add(arcTargets[arc]);
+					}
+				}
+				if (improved.size > 0) improvedNodes.add(improved);
+			}
+		}
+
+		/**
+		 * Chooses the parents of a range of nodes, splitting the range among several tasks if it is large.
+		 */
+		@SuppressWarnings("serial")
+		private class ParentTask extends RecursiveAction {
+			private final double[] finalDistances;
+			private final int[] parents;
+			private final int from;
+			private final int to;
+
+			ParentTask(double[] finalDistances, int[] parents, int from, int to) {
+				this.finalDistances = finalDistances;
+				this.parents = parents;
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if (to - from > SEQUENTIAL_THRESHOLD * 16) {
+					final int middle = (from + to) >>> 1;
+					invokeAll(
+							new ParentTask(finalDistances, parents, from, middle),
+							new ParentTask(finalDistances, parents, middle, to)
+					);
+					return;
+				}
+				for (int node = from; node < to; node++) {
+					parents[node] = ShortestPathTree.NO_PARENT;
+					if (node == source || finalDistances[node] == ShortestPathTree.UNREACHABLE) continue;
+					// The graph is undirected, so the arcs leaving the node are also the ones entering it. The final
+					// distance was computed as exactly this sum for at least one neighbor.
+					for (int arc = arcOffsets[node]; arc < arcOffsets[node + 1]; arc++) {
+						final int neighbor = arcTargets[arc];
+						if (finalDistances[neighbor] < finalDistances[node]
+								&& finalDistances[neighbor] + arcWeights[arc] == finalDistances[node]) {
+							parents[node] = neighbor;
+							break;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A growable list of {@code int}s.
+	 */
+	private static class IntList {
+		int[] values = new int[8];
+		int size = 0;
+
+		void add(int value) {
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		void addAll(IntList other) {
+			if (size + other.size > values.length)
+				values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphView;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm over all nodes of a graph that indexes its nodes, as used by the preprocessing of the
+ * precomputed indices, like {@code LandmarkHeuristic}.
+ */
+final class Dijkstra {
+	/**
+	 * The cost stored for nodes that can't be reached, the same as everywhere else in this package.
+	 */
+	static final double UNREACHABLE = ShortestPathTree.UNREACHABLE;
+
+	private Dijkstra() {}
+
+	/**
+	 * Computes the cost of the shortest path from the given node to every node.
+	 *
+	 * @param graph The graph to search; must index its nodes
+	 * @param source The index of the node to start at
+	 * @param workspace The workspace to run the search in; it is reset
+	 * @return the costs, by node index, with {@code UNREACHABLE} for nodes that can't be reached
+	 */
+	static <ND extends JSONSerializable> double[] distances(GraphView<ND, ?> graph, int source, SearchWorkspace workspace) {
+		final double[] result = new double[graph.getNodeIndexBound()];
+		Arrays.fill(result, UNREACHABLE);
+		workspace.reset();
+		final IndexedHeap openNodes = workspace.getOpenNodes();
+		workspace.reach(source, 0.0, 0.0, SearchWorkspace.NO_PARENT);
+		openNodes.offer(source, 0.0);
+		while (!openNodes.isEmpty()) {
+			final int current = openNodes.poll();
+			final double cost = workspace.getCost(current);
+			result[current] = cost;
+			graph.forEachArc(current, (neighborIndex, edgeWeight) -> {
+				final double newCost = cost + edgeWeight;
+				if (newCost >= workspace.getCost(neighborIndex)) return;
+				workspace.reach(neighborIndex, newCost, newCost, current);
+				openNodes.offer(neighborIndex, newCost);
+			});
+		}
+		return result;
+	}
+}
@@ -0,0 +1,497 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.ArcConsumer;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A parallel variant of the A*-Algorithm for single, very large searches, known as hash-distributed A* (HDA*).
+ * <br>
+ * Every node is owned by one of several worker threads, determined from its index, and only its owner ever stores or
+ * checks it. Each worker has its own list of open nodes. When a worker discovers a path to a node owned by another
+ * worker, it sends that worker a message through a lock-free queue, and the other worker decides whether the path is
+ * an improvement. Messages are collected per receiver and sent in batches, to keep the overhead of the queues low.
+ * <br>
+ * Since the workers don't check their nodes in the global order of their estimates, a path to the goal that is found
+ * first isn't necessarily the shortest one. Instead, the cost of the best path found so far is shared between all
+ * workers, and nodes whose estimate isn't lower than it are never checked. The search is over once no worker has
+ * any nodes left to check and no messages are on their way. This is detected by counting the active workers and the
+ * unprocessed messages in a single number, which can only reach zero once all work is done.
+ * <br>
+ * This requires a graph that indexes its nodes, and that can be read from several threads at once while it isn't
+ * modified. The heuristic must be safe to call from several threads as well. The result is the same as that of
+ * {@code AStar}, but the shortest path is only guaranteed to be found if the heuristic is admissible.
+ *
+ * @param <ND> The type of data stored in the graph nodes used. Must extend AStarNodeData.
+ * @param <ED> The type of data stored in the graph edges used.
+ *
+ * @see AStar
+ */
+public class HashDistributedAStar<ND extends AStarNodeData, ED extends JSONSerializable> {
+	/**
+	 * The number of messages to the same worker collected before they are sent.
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	/**
+	 * The number of nodes a worker checks before it sends all messages it has collected, so that other workers don't
+	 * wait for them for too long.
+	 */
+	private static final int FLUSH_INTERVAL = 16;
+
+	/**
+	 * The number of times an idle worker checks for messages before it starts to pause between checks.
+	 */
+	private static final int SPINS_BEFORE_PARKING = 100;
+
+	/**
+	 * The graph the algorithm operates on.
+	 */
+	public final GraphView<ND, ED> graph;
+
+	/**
+	 * The node the algorithm starts from.
+	 */
+	public final GraphNode<ND> start;
+
+	/**
+	 * The node the algorithm tries to reach.
+	 */
+	public final GraphNode<ND> goal;
+
+	private final Heuristic<ND> heuristic;
+
+	private final int goalIndex;
+
+	private final Worker[] workers;
+
+	/**
+	 * The number of active workers plus the number of message batches that have been sent but not processed yet.
+	 * The search is over once this reaches zero.
+	 */
+	private final AtomicLong pendingWork = new AtomicLong();
+
+	/**
+	 * The cost of the best path to the goal found so far, stored as the bits of a double.
+	 */
+	private final AtomicLong bestCostBits = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+
+	/**
+	 * The first exception thrown by any worker.
+	 */
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	private volatile boolean halted = false;
+
+	private List<GraphNode<ND>> result;
+
+	/**
+	 * Constructs an instance of the algorithm that uses one worker per available processor and the geometric estimate.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or doesn't contain the start or goal
+	 */
+	public HashDistributedAStar(GraphView<ND, ED> graph, GraphNode<ND> start, GraphNode<ND> goal) {
+		this(graph, start, goal, AStar::estimateCost, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs an instance of the algorithm.
+	 *
+	 * @param graph The graph this algorithm acts on
+	 * @param start The starting node
+	 * @param goal The node the algorithm tries to reach
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 * @param threadCount The number of workers
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, doesn't contain the start or goal, the
+	 * 									heuristic wasn't computed for the graph in its current state, or the thread
+	 * 									count isn't positive
+	 */
+	@SuppressWarnings("unchecked")
+	public HashDistributedAStar(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			Heuristic<ND> heuristic,
+			int threadCount
+	) {
+		if (!graph.contains(start) || !graph.contains(goal))
+			throw new IllegalArgumentException("Start and end nodes must be contained in the graph");
+		final int nodeCount = graph.getNodeIndexBound();
+		if (nodeCount < 0)
+			throw new IllegalArgumentException("Hash-distributed A* requires a graph that indexes its nodes");
+		if (!heuristic.isFor(graph))
+			throw new IllegalArgumentException("The heuristic must be computed for the current graph");
+		if (threadCount <= 0) throw new IllegalArgumentException("The number of threads must be positive");
+		this.graph = graph;
+		this.start = start;
+		this.goal = goal;
+		this.heuristic = heuristic;
+		goalIndex = graph.indexOf(goal);
+		workers = new HashDistributedAStar.Worker[threadCount];
+		for (int i = 0; i < threadCount; i++) workers[i] = new Worker(i, (nodeCount + threadCount - 1) / threadCount);
+	}
+
+	/**
+	 * Finds the shortest path from {@code start} to {@code goal} in the given graph, using one worker per available
+	 * processor.
+	 *
+	 * @param graph The graph to search
+	 * @param start The starting node
+	 * @param goal The node to find a path to
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the found path in form of an ordered list of the nodes it goes along, or {@code null} if no path to the
+	 * 		   goal was found.
+	 */
+	public static <ND extends AStarNodeData, ED extends JSONSerializable> List<GraphNode<ND>> findPath(
+			GraphView<ND, ED> graph,
+			GraphNode<ND> start,
+			GraphNode<ND> goal,
+			Heuristic<ND> heuristic
+	) {
+		return new HashDistributedAStar<>(graph, start, goal, heuristic, Runtime.getRuntime().availableProcessors())
+				.execute();
+	}
+
+	/**
+	 * Executes the algorithm and returns the path found. The calling thread waits until all workers are done.
+	 * <br>
+	 * If the calling thread is interrupted while waiting, the workers are stopped before they have finished the
+	 * search, so the best path they found so far may not be the shortest one. In that case, {@code null} is returned
+	 * once all workers have stopped, and the thread's interrupt flag is set again.
+	 *
+	 * @return the found path in form of an ordered list of the nodes it goes along, or {@code null} if no path to the
+	 * 		   goal was found or the search was interrupted.
+	 * @throws IllegalStateException if the algorithm was already executed
+	 */
+	public List<GraphNode<ND>> execute() {
+		if (halted) throw new IllegalStateException("The algorithm has already been executed");
+		final int startIndex = graph.indexOf(start);
+		pendingWork.set(workers.length);
+		final Worker startOwner = ownerOf(startIndex);
+		final MessageBatch initial = new MessageBatch();
+		initial.add(startIndex, 0.0, SearchWorkspace.NO_PARENT);
+		pendingWork.incrementAndGet();
+		startOwner.inbox.add(initial);
+
+		final Thread[] threads = new Thread[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			threads[i] = new Thread(workers[i]::run, "hda-worker-" + i);
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		boolean interrupted = false;
+		for (Thread thread : threads) {
+			while (true) {
+				try {
+					thread.join();
+					break;
+				} catch (InterruptedException e) {
+					// Stop the workers, but still wait for them, so that their state isn't read while they run.
+					interrupted = true;
+					halted = true;
+				}
+			}
+		}
+		halted = true;
+		if (interrupted) Thread.currentThread().interrupt();
+		final Throwable workerFailure = failure.get();
+		if (workerFailure instanceof RuntimeException) throw (RuntimeException) workerFailure;
+		if (workerFailure instanceof Error) throw (Error) workerFailure;
+		// The search was stopped early, so the best path found so far may not be the shortest one.
+		if (interrupted) return null;
+		result = reconstructPath();
+		return result;
+	}
+
+	/**
+	 * Follows the previous nodes back from the goal, asking the owner of each node for its previous node.
+	 */
+	private List<GraphNode<ND>> reconstructPath() {
+		if (getCost() == Double.MAX_VALUE) return null;
+		final ArrayList<GraphNode<ND>> path = new ArrayList<>();
+		for (int index = goalIndex; index != SearchWorkspace.NO_PARENT; index = ownerOf(index).parentOf(index))
+			path.add(graph.getNode(index));
+		// The nodes were added from the end of the path to the start.
+		Collections.reverse(path);
+		return Collections.unmodifiableList(path);
+	}
+
+	private Worker ownerOf(int index) {
+		return workers[index % workers.length];
+	}
+
+	/**
+	 * Records a path to the goal, if it is better than the best one found so far.
+	 */
+	private void offerGoalCost(double cost) {
+		final long bits = Double.doubleToLongBits(cost);
+		long current = bestCostBits.get();
+		while (bits < current) {
+			if (bestCostBits.compareAndSet(current, bits)) return;
+			current = bestCostBits.get();
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Getters
+
+	/**
+	 * Gets the path found by the algorithm.
+	 *
+	 * @return the path in the form of an ordered list of the nodes it visits, or {@code null} if the algorithm hasn't
+	 * 		   been executed or no path to the goal exists.
+	 */
+	public List<GraphNode<ND>> getResult() {
+		return result;
+	}
+
+	/**
+	 * Checks whether the algorithm has finished, meaning it has halted and has in fact found a path to the goal.
+	 *
+	 * @return {@code true} if the algorithm has finished
+	 */
+	public boolean isFinished() {
+		return result != null;
+	}
+
+	/**
+	 * Gets the cost of the best path to the goal found so far.
+	 *
+	 * @return the cost, or {@code Double.MAX_VALUE} if no path was found
+	 */
+	public double getCost() {
+		return Double.longBitsToDouble(bestCostBits.get());
+	}
+
+	/**
+	 * Gets the number of nodes all workers together have checked. Since the workers don't check the nodes in the
+	 * global order of their estimates, this is usually somewhat higher than {@code AStar.getExpandedNodeCount()}.
+	 *
+	 * @return the number of expanded nodes
+	 */
+	public int getExpandedNodeCount() {
+		int count = 0;
+		for (Worker worker : workers) count += worker.expandedNodeCount;
+		return count;
+	}
+
+	/**
+	 * Gets the number of messages the workers have sent to each other.
+	 *
+	 * @return the number of messages
+	 */
+	public long getMessageCount() {
+		long count = 0;
+		for (Worker worker : workers) count += worker.sentMessageCount;
+		return count;
+	}
+
+	/**
+	 * Gets the number of workers.
+	 *
+	 * @return the number of threads
+	 */
+	public int getThreadCount() {
+		return workers.length;
+	}
+
+	/**
+	 * A batch of messages to a single worker, each reporting a path to one of its nodes.
+	 */
+	private static class MessageBatch {
+		int[] nodes = new int[8];
+		double[] costs = new double[8];
+		int[] parents = new int[8];
+		int size = 0;
+
+		void add(int node, double cost, int parent) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				costs = Arrays.copyOf(costs, size * 2);
+				parents = Arrays.copyOf(parents, size * 2);
+			}
+			nodes[size] = node;
+			costs[size] = cost;
+			parents[size++] = parent;
+		}
+	}
+
+	/**
+	 * One of the threads of the search, together with the nodes it owns. The node with index {@code i} is owned by
+	 * worker {@code i % workers.length}, and stored under the local index {@code i / workers.length}.
+	 */
+	private class Worker implements ArcConsumer {
+		final int id;
+
+		final ConcurrentLinkedQueue<MessageBatch> inbox = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * The messages collected for each worker, or {@code null} if there are none.
+		 */
+		private final MessageBatch[] outbox = new MessageBatch[workers.length];
+
+		/**
+		 * The cost to reach each owned node, by local index.
+		 */
+		private final double[] costs;
+
+		/**
+		 * The previous node of each owned node, by local index, as a global index.
+		 */
+		private final int[] parents;
+
+		/**
+		 * The owned nodes that still need to be checked, by local index, prioritized by their estimate.
+		 */
+		private final IndexedHeap openNodes = new IndexedHeap();
+
+		int expandedNodeCount = 0;
+
+		long sentMessageCount = 0;
+
+		private int currentIndex;
+
+		private double costToCurrent;
+
+		Worker(int id, int capacity) {
+			this.id = id;
+			costs = new double[capacity];
+			Arrays.fill(costs, Double.MAX_VALUE);
+			parents = new int[capacity];
+			Arrays.fill(parents, SearchWorkspace.NO_PARENT);
+		}
+
+		void run() {
+			try {
+				work();
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+				halted = true;
+			}
+		}
+
+		private void work() {
+			int sinceFlush = 0;
+			while (true) {
+				receive();
+				if (!openNodes.isEmpty() && openNodes.peekPriority() < getCost() && !halted) {
+					expand(openNodes.poll());
+					if (++sinceFlush >= FLUSH_INTERVAL) {
+						flush();
+						sinceFlush = 0;
+					}
+					continue;
+				}
+				// Nothing left to do for now. Send everything before going idle, so that the work can't get lost.
+				flush();
+				sinceFlush = 0;
+				if (pendingWork.decrementAndGet() == 0) halted = true;
+				if (!awaitMessages()) return;
+			}
+		}
+
+		/**
+		 * Waits until a message arrives or the search is over.
+		 *
+		 * @return {@code false} if the search is over
+		 */
+		private boolean awaitMessages() {
+			int spins = 0;
+			while (!halted) {
+				if (!inbox.isEmpty()) {
+					// The message is still counted as pending, so the count can't reach zero in between.
+					pendingWork.incrementAndGet();
+					return true;
+				}
+				if (++spins < SPINS_BEFORE_PARKING) Thread.onSpinWait();
+				else LockSupport.parkNanos(10_000);
+			}
+			return false;
+		}
+
+		/**
+		 * Processes all messages that have arrived.
+		 */
+		private void receive() {
+			MessageBatch batch;
+			while ((batch = inbox.poll()) != null) {
+				for (int i = 0; i < batch.size; i++) reach(batch.nodes[i], batch.costs[i], batch.parents[i]);
+				pendingWork.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Records a path to an owned node, if it is better than the best one known so far.
+		 */
+		private void reach(int node, double cost, int parent) {
+			final int local = node / workers.length;
+			if (cost >= costs[local]) return;
+			costs[local] = cost;
+			parents[local] = parent;
+			if (node == goalIndex) {
+				offerGoalCost(cost);
+				return; // Paths through the goal can't lead to a better path to the goal.
+			}
+			final double estimate = cost + heuristic.estimate(graph.getNode(node), goal);
+			if (estimate < getCost()) openNodes.offer(local, estimate);
+		}
+
+		private void expand(int local) {
+			expandedNodeCount++;
+			currentIndex = local * workers.length + id;
+			costToCurrent = costs[local];
+			graph.forEachArc(currentIndex, this);
+		}
+
+		@Override
+		public void accept(int neighborIndex, double edgeWeight) {
+			final double newCost = costToCurrent + edgeWeight;
+			if (newCost >= getCost()) return;
+			final Worker owner = ownerOf(neighborIndex);
+			if (owner == this) {
+				reach(neighborIndex, newCost, currentIndex);
+				return;
+			}
+			if (outbox[owner.id] == null) outbox[owner.id] = new MessageBatch();
+			outbox[owner.id].add(neighborIndex, newCost, currentIndex);
+			if (outbox[owner.id].size >= BATCH_SIZE) send(owner);
+		}
+
+		/**
+		 * Sends the collected messages to all workers.
+		 */
+		private void flush() {
+			for (Worker worker : workers) {
+				if (outbox[worker.id] != null) send(worker);
+			}
+		}
+
+		private void send(Worker receiver) {
+			final MessageBatch batch = outbox[receiver.id];
+			outbox[receiver.id] = null;
+			sentMessageCount += batch.size;
+			// Count the batch before it can be processed, so that the pending work never drops to zero too early.
+			pendingWork.incrementAndGet();
+			receiver.inbox.add(batch);
+		}
+
+		int parentOf(int node) {
+			return parents[node / workers.length];
+		}
+	}
+}
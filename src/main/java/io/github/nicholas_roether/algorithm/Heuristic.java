@@ -0,0 +1,43 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+
+/**
+ * Estimates the cost of the shortest path between two nodes, to guide path-finding algorithms like {@code AStar}.
+ * <br>
+ * If the estimate never exceeds the actual cost, the heuristic is called admissible, and the algorithms are
+ * guaranteed to find the shortest path. The closer the estimate is to the actual cost, the fewer nodes the
+ * algorithms need to check.
+ *
+ * @param <ND> The node data type of the graphs the heuristic is used on
+ *
+ * @see AStar#estimateCost(GraphNode, GraphNode)
+ * @see LandmarkHeuristic
+ */
+@FunctionalInterface
+public interface Heuristic<ND extends JSONSerializable> {
+	/**
+	 * Estimates the cost of the shortest path between the given nodes.
+	 *
+	 * @param node The node the path starts at
+	 * @param goal The node the path ends at
+	 * @return the estimated cost; must not be negative
+	 */
+	double estimate(GraphNode<ND> node, GraphNode<ND> goal);
+
+	/**
+	 * Checks whether this heuristic can be used on the given graph in its current state. Heuristics that are
+	 * precomputed for a graph, like {@code LandmarkHeuristic}, may overestimate on any other graph, or once their
+	 * graph has changed. Path-finding algorithms reject heuristics for which this returns {@code false}.
+	 * <br>
+	 * By default, this returns {@code true}, which is right for heuristics that don't depend on a specific graph.
+	 *
+	 * @param graph The graph to check
+	 * @return {@code true} if the heuristic can be used on the graph
+	 */
+	default boolean isFor(GraphView<ND, ?> graph) {
+		return true;
+	}
+}
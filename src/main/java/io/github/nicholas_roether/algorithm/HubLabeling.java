@@ -0,0 +1,399 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A hub labeling, a precomputed index of a graph that answers distance queries by looking at only two short lists.
+ * <br>
+ * Every node is given a label: a list of other nodes, called hubs, together with the cost of the shortest path to
+ * each of them. The labels are chosen such that for any two nodes, some node on the shortest path between them is a
+ * hub of both. The cost of that path is then the smallest sum of the costs to a hub both labels share, which can be
+ * found by walking through the two labels side by side.
+ * <br>
+ * The labels are computed by pruned labeling: the nodes are processed in order of importance, and a run of Dijkstra's
+ * algorithm from each node adds it as a hub to the labels of the nodes it reaches, except where the labels computed
+ * so far already give the correct cost. In that case, the search doesn't continue past that node either, which keeps
+ * the searches of less important nodes very small. The better the order, the smaller the labels; the order of a
+ * {@code ContractionHierarchy} works well, but ordering the nodes by their degree is much cheaper to compute.
+ * <br>
+ * The labels of all nodes are stored in two arrays, with each label sorted by the importance of its hubs. Only
+ * distances can be queried, not paths. The labeling is immutable, so queries can run on any number of threads at
+ * once. It doesn't follow changes to the graph it was built from, and needs to be rebuilt whenever the graph changes,
+ * even if only the weight of an edge changed; {@code isFor()} tells whether that is the case. It can be saved to a
+ * file using {@code write()}, and loaded again using {@code read()}.
+ *
+ * @param <ND> The node data type of the graph
+ */
+public class HubLabeling<ND extends JSONSerializable> {
+	/**
+	 * The number that identifies hub labeling files.
+	 */
+	private static final int MAGIC = 0x4855424C;
+
+	/**
+	 * The version of the file format written by {@code write()}.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The graph the labeling was built from, or {@code null} if it was read from a file.
+	 */
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * The modification count of the graph at the time the labeling was built.
+	 */
+	private final long modificationCount;
+
+	/**
+	 * The nodes, by index. Unused indices contain {@code null}.
+	 */
+	private final GraphNode<ND>[] nodes;
+
+	/**
+	 * The index of each node.
+	 */
+	private final Map<GraphNode<ND>, Integer> indices;
+
+	/**
+	 * The position in the label arrays of the first entry of the label of each node. The label of the node with index
+	 * {@code i} is stored between {@code labelOffsets[i]} (inclusive) and {@code labelOffsets[i + 1]} (exclusive).
+	 */
+	private final int[] labelOffsets;
+
+	/**
+	 * The hub of each label entry, identified by its position in the order the hubs were processed in. Within each
+	 * label, the hubs are sorted in ascending order.
+	 */
+	private final int[] labelHubs;
+
+	/**
+	 * The cost of the shortest path between the node and the hub of each label entry.
+	 */
+	private final double[] labelDistances;
+
+	private HubLabeling(
+			GraphView<ND, ?> graph,
+			long modificationCount,
+			GraphNode<ND>[] nodes,
+			int[] labelOffsets,
+			int[] labelHubs,
+			double[] labelDistances
+	) {
+		this.graph = graph;
+		this.modificationCount = modificationCount;
+		this.nodes = nodes;
+		this.labelOffsets = labelOffsets;
+		this.labelHubs = labelHubs;
+		this.labelDistances = labelDistances;
+		indices = new HashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i] != null) indices.put(nodes[i], i);
+		}
+	}
+
+	/**
+	 * Builds a hub labeling of the given graph, processing the nodes in descending order of their degree.
+	 *
+	 * @param graph The graph to build the labeling of
+	 * @param <ND> The node data type of the graph
+	 * @return the labeling
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes
+	 */
+	public static <ND extends JSONSerializable> HubLabeling<ND> build(@NotNull GraphView<ND, ?> graph) {
+		final int nodeCount = requireIndexed(graph);
+		final long[] keys = new long[nodeCount];
+		int size = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			final GraphNode<ND> node = graph.getNode(i);
+			if (node == null) continue;
+			final int[] degree = {0};
+			graph.forEachNeighbor(node, (neighbor, edgeWeight, edgeData) -> degree[0]++);
+			// Sort by descending degree, then ascending index.
+			keys[size++] = ((long) (Integer.MAX_VALUE - degree[0]) << 32) | i;
+		}
+		Arrays.sort(keys, 0, size);
+		final int[] order = new int[size];
+		for (int i = 0; i < size; i++) order[i] = (int) keys[i];
+		return build(graph, order);
+	}
+
+	/**
+	 * Builds a hub labeling of the given graph, processing the nodes in descending order of their rank in the given
+	 * contraction hierarchy, which usually results in much smaller labels than the order by degree.
+	 *
+	 * @param graph The graph to build the labeling of
+	 * @param hierarchy A contraction hierarchy of the same graph
+	 * @param <ND> The node data type of the graph
+	 * @return the labeling
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or contains a node the hierarchy doesn't
+	 */
+	public static <ND extends JSONSerializable> HubLabeling<ND> build(
+			@NotNull GraphView<ND, ?> graph,
+			@NotNull ContractionHierarchy<ND> hierarchy
+	) {
+		final int nodeCount = requireIndexed(graph);
+		final long[] keys = new long[nodeCount];
+		int size = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			final GraphNode<ND> node = graph.getNode(i);
+			if (node == null) continue;
+			keys[size++] = ((long) (Integer.MAX_VALUE - hierarchy.getRank(node)) << 32) | i;
+		}
+		Arrays.sort(keys, 0, size);
+		final int[] order = new int[size];
+		for (int i = 0; i < size; i++) order[i] = (int) keys[i];
+		return build(graph, order);
+	}
+
+	/**
+	 * Builds a hub labeling of the given graph, processing the nodes in the given order.
+	 *
+	 * @param graph The graph to build the labeling of
+	 * @param order The indices of the nodes, most important first. Must contain every node of the graph exactly once.
+	 * @param <ND> The node data type of the graph
+	 * @return the labeling
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or the order isn't valid
+	 */
+	@SuppressWarnings("unchecked")
+	public static <ND extends JSONSerializable> HubLabeling<ND> build(
+			@NotNull GraphView<ND, ?> graph,
+			int @NotNull [] order
+	) {
+		final int nodeCount = requireIndexed(graph);
+		final long modificationCount = graph.getModificationCount();
+		final GraphNode<ND>[] nodes = new GraphNode[nodeCount];
+		int presentCount = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			nodes[i] = graph.getNode(i);
+			if (nodes[i] != null) presentCount++;
+		}
+		final boolean[] ordered = new boolean[nodeCount];
+		for (int index : order) {
+			if (index < 0 || index >= nodeCount || nodes[index] == null || ordered[index])
+				throw new IllegalArgumentException("The order must contain every node exactly once");
+			ordered[index] = true;
+		}
+		if (order.length != presentCount)
+			throw new IllegalArgumentException("The order must contain every node exactly once");
+
+		// The labels under construction; entries are appended in the order of the hubs, so they stay sorted.
+		final int[][] hubs = new int[nodeCount][];
+		final double[][] distances = new double[nodeCount][];
+		final int[] labelSizes = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			hubs[i] = new int[4];
+			distances[i] = new double[4];
+		}
+
+		// The label of the current hub, indexed by hub, so that a query against it only needs one pass.
+		final double[] hubLabel = new double[order.length];
+		Arrays.fill(hubLabel, Double.MAX_VALUE);
+		final SearchWorkspace workspace = new SearchWorkspace(nodeCount);
+		final IndexedHeap openNodes = workspace.getOpenNodes();
+		for (int rank = 0; rank < order.length; rank++) {
+			final int hub = order[rank];
+			for (int i = 0; i < labelSizes[hub]; i++) hubLabel[hubs[hub][i]] = distances[hub][i];
+
+			workspace.reset();
+			workspace.reach(hub, 0.0, 0.0, SearchWorkspace.NO_PARENT);
+			openNodes.offer(hub, 0.0);
+			while (!openNodes.isEmpty()) {
+				final int current = openNodes.poll();
+				final double cost = workspace.getCost(current);
+				// If the labels computed so far already give this cost, so do they for everything beyond this node.
+				boolean covered = false;
+				for (int i = 0; i < labelSizes[current]; i++) {
+					if (hubLabel[hubs[current][i]] + distances[current][i] <= cost) {
+						covered = true;
+						break;
+					}
+				}
+				if (covered) continue;
+
+				final int size = labelSizes[current]++;
+				if (size == hubs[current].length) {
+					hubs[current] = Arrays.copyOf(hubs[current], size * 2);
+					distances[current] = Arrays.copyOf(distances[current], size * 2);
+				}
+				hubs[current][size] = rank;
+				distances[current][size] = cost;
+
+				graph.forEachNeighbor(nodes[current], (neighbor, edgeWeight, edgeData) -> {
+					final int neighborIndex = graph.indexOf(neighbor);
+					final double newCost = cost + edgeWeight;
+					if (newCost >= workspace.getCost(neighborIndex)) return;
+					workspace.reach(neighborIndex, newCost, newCost, current);
+					openNodes.offer(neighborIndex, newCost);
+				});
+			}
+
+			for (int i = 0; i < labelSizes[hub]; i++) hubLabel[hubs[hub][i]] = Double.MAX_VALUE;
+		}
+
+		final int[] labelOffsets = new int[nodeCount + 1];
+		for (int i = 0; i < nodeCount; i++) labelOffsets[i + 1] = labelOffsets[i] + labelSizes[i];
+		final int[] labelHubs = new int[labelOffsets[nodeCount]];
+		final double[] labelDistances = new double[labelOffsets[nodeCount]];
+		for (int i = 0; i < nodeCount; i++) {
+			System.arraycopy(hubs[i], 0, labelHubs, labelOffsets[i], labelSizes[i]);
+			System.arraycopy(distances[i], 0, labelDistances, labelOffsets[i], labelSizes[i]);
+		}
+		return new HubLabeling<>(graph, modificationCount, nodes, labelOffsets, labelHubs, labelDistances);
+	}
+
+	/**
+	 * Finds the cost of the shortest path between the given nodes.
+	 *
+	 * @param from The node the path starts at
+	 * @param to The node the path ends at
+	 * @return the cost of the shortest path, or {@code Double.MAX_VALUE} if there is no path
+	 * @throws IllegalArgumentException if one of the nodes isn't part of the labeling
+	 */
+	public double getDistance(GraphNode<ND> from, GraphNode<ND> to) {
+		final int fromIndex = requireIndex(from);
+		final int toIndex = requireIndex(to);
+		int i = labelOffsets[fromIndex];
+		final int fromEnd = labelOffsets[fromIndex + 1];
+		int j = labelOffsets[toIndex];
+		final int toEnd = labelOffsets[toIndex + 1];
+		double distance = Double.MAX_VALUE;
+		// Both labels are sorted by hub, so the shared hubs can be found in a single pass.
+		while (i < fromEnd && j < toEnd) {
+			final int fromHub = labelHubs[i];
+			final int toHub = labelHubs[j];
+			if (fromHub < toHub) {
+				i++;
+			} else if (fromHub > toHub) {
+				j++;
+			} else {
+				distance = Math.min(distance, labelDistances[i++] + labelDistances[j++]);
+			}
+		}
+		return distance;
+	}
+
+	private int requireIndex(GraphNode<ND> node) {
+		final Integer index = indices.get(node);
+		if (index == null) throw new IllegalArgumentException("The node " + node + " isn't part of the labeling");
+		return index;
+	}
+
+	private static int requireIndexed(GraphView<?, ?> graph) {
+		final int nodeCount = graph.getNodeIndexBound();
+		if (nodeCount < 0) throw new IllegalArgumentException("Hub labels require a graph that indexes its nodes");
+		return nodeCount;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Getters
+
+	/**
+	 * Checks whether this labeling was built from the given graph, and the graph hasn't changed since, not even the
+	 * weight of an edge. Labelings that were read from a file can't tell which graph they belong to, so this always
+	 * returns {@code false} for them.
+	 *
+	 * @param graph The graph to check
+	 * @return {@code true} if the labeling is up to date for the graph
+	 */
+	public boolean isFor(GraphView<ND, ?> graph) {
+		return graph != null && graph == this.graph && graph.getModificationCount() == modificationCount;
+	}
+
+	/**
+	 * Checks whether the given node is part of this labeling.
+	 *
+	 * @param node The node to check
+	 * @return {@code true} if the node is contained
+	 */
+	public boolean contains(GraphNode<ND> node) {
+		return indices.containsKey(node);
+	}
+
+	/**
+	 * Returns the number of hubs in the label of the given node.
+	 *
+	 * @param node The node
+	 * @return the size of its label
+	 * @throws IllegalArgumentException if the node isn't part of the labeling
+	 */
+	public int getLabelSize(GraphNode<ND> node) {
+		final int index = requireIndex(node);
+		return labelOffsets[index + 1] - labelOffsets[index];
+	}
+
+	/**
+	 * Returns the total number of entries in all labels.
+	 *
+	 * @return the number of label entries
+	 */
+	public int getEntryCount() {
+		return labelHubs.length;
+	}
+
+	/**
+	 * Returns the average number of hubs per label, which is proportional to the time a query takes.
+	 *
+	 * @return the average label size
+	 */
+	public double getAverageLabelSize() {
+		return indices.isEmpty() ? 0 : (double) labelHubs.length / indices.size();
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Persistence
+
+	/**
+	 * Writes this labeling to the given file. Nodes are stored by name, so that they can be found again when the
+	 * labeling is read.
+	 *
+	 * @param path The file to write to
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(@NotNull Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			IndexFiles.writeHeader(out, MAGIC, FORMAT_VERSION);
+			IndexFiles.writeNodes(out, nodes);
+			out.writeInt(labelHubs.length);
+			IndexFiles.writeInts(out, labelOffsets);
+			IndexFiles.writeInts(out, labelHubs);
+			IndexFiles.writeDoubles(out, labelDistances);
+		}
+	}
+
+	/**
+	 * Reads a labeling from a file written by {@code write()}.
+	 *
+	 * @param path The file to read from
+	 * @param nodeResolver A function that returns the node with the given name, like {@code Graph.getNode()}
+	 * @param <ND> The node data type of the graph
+	 * @return the labeling
+	 * @throws IOException if the file can't be read, isn't a valid labeling file, or contains a node the resolver
+	 * 					   doesn't know
+	 */
+	public static <ND extends JSONSerializable> HubLabeling<ND> read(
+			@NotNull Path path,
+			@NotNull Function<String, GraphNode<ND>> nodeResolver
+	) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			IndexFiles.readHeader(in, MAGIC, FORMAT_VERSION, "hub labeling");
+			final GraphNode<ND>[] nodes = IndexFiles.readNodes(in, nodeResolver);
+			final int entryCount = IndexFiles.readCount(in);
+			final int[] labelOffsets = IndexFiles.readInts(in, nodes.length + 1);
+			final int[] labelHubs = IndexFiles.readInts(in, entryCount);
+			final double[] labelDistances = IndexFiles.readDoubles(in, entryCount);
+			return new HubLabeling<>(null, 0, nodes, labelOffsets, labelHubs, labelDistances);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Helpers shared by the precomputed indices that can be saved to files, like {@code ContractionHierarchy} and
+ * {@code HubLabeling}.
+ * <br>
+ * Every file starts with a number identifying its kind and the version of its format. Nodes are stored by name, so
+ * that they can be matched with the nodes of a graph when the file is read.
+ */
+final class IndexFiles {
+	private IndexFiles() {}
+
+	static void writeHeader(DataOutputStream out, int magic, int version) throws IOException {
+		out.writeInt(magic);
+		out.writeInt(version);
+	}
+
+	/**
+	 * Reads the header of a file and checks that it matches the expected one.
+	 *
+	 * @param kind The name of the kind of file, for error messages
+	 * @throws IOException if the header doesn't match
+	 */
+	static void readHeader(DataInputStream in, int magic, int version, String kind) throws IOException {
+		if (in.readInt() != magic) throw new IOException("Not a " + kind + " file");
+		final int fileVersion = in.readInt();
+		if (fileVersion != version) throw new IOException("Unsupported " + kind + " format version " + fileVersion);
+	}
+
+	/**
+	 * Writes the number of nodes, followed by the name of each node, with {@code null} nodes marked as missing.
+	 */
+	static void writeNodes(DataOutputStream out, GraphNode<?>[] nodes) throws IOException {
+		out.writeInt(nodes.length);
+		for (GraphNode<?> node : nodes) {
+			if (node == null) {
+				out.writeInt(-1);
+				continue;
+			}
+			final byte[] name = node.name.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(name.length);
+			out.write(name);
+		}
+	}
+
+	/**
+	 * Reads the nodes written by {@code writeNodes()}, looking each of them up by name.
+	 *
+	 * @throws IOException if the resolver doesn't know one of the nodes
+	 */
+	@SuppressWarnings("unchecked")
+	static <ND extends JSONSerializable> GraphNode<ND>[] readNodes(
+			DataInputStream in,
+			Function<String, GraphNode<ND>> nodeResolver
+	) throws IOException {
+		final int nodeCount = readCount(in);
+		final GraphNode<ND>[] nodes = new GraphNode[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			final int nameLength = in.readInt();
+			if (nameLength < 0) continue;
+			final byte[] bytes = new byte[nameLength];
+			in.readFully(bytes);
+			final String name = new String(bytes, StandardCharsets.UTF_8);
+			nodes[i] = nodeResolver.apply(name);
+			if (nodes[i] == null) throw new IOException("Unknown node " + name);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Reads a count, which must not be negative.
+	 *
+	 * @throws IOException if the count is negative
+	 */
+	static int readCount(DataInputStream in) throws IOException {
+		final int count = in.readInt();
+		if (count < 0) throw new IOException("Corrupt file: negative count " + count);
+		return count;
+	}
+
+	static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		for (int value : values) out.writeInt(value);
+	}
+
+	static int[] readInts(DataInputStream in, int count) throws IOException {
+		final int[] values = new int[count];
+		for (int i = 0; i < count; i++) values[i] = in.readInt();
+		return values;
+	}
+
+	static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+		for (double value : values) out.writeDouble(value);
+	}
+
+	static double[] readDoubles(DataInputStream in, int count) throws IOException {
+		final double[] values = new double[count];
+		for (int i = 0; i < count; i++) values[i] = in.readDouble();
+		return values;
+	}
+}
@@ -0,0 +1,266 @@
+package io.github.nicholas_roether.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of non-negative integers, usually node indices, that keeps track of the position of each of its
+ * elements. This allows it to check whether it contains an element in constant time, and to change the priority of
+ * an element in logarithmic time.
+ * <br>
+ * The queue is implemented as a d-ary heap, meaning each entry has up to {@code d} children instead of two. This makes
+ * the heap shallower, so that lowering a priority, which is by far the most common operation in path-finding, needs
+ * fewer steps, at the cost of more comparisons when removing the element with the lowest priority.
+ * <br>
+ * Elements with the lowest priority come first. Each element can only be contained once. All data is kept in
+ * primitive arrays, so apart from growing them, the heap doesn't allocate any memory.
+ */
+public class IndexedHeap {
+	/**
+	 * The number of children of each entry used by default.
+	 */
+	public static final int DEFAULT_ARITY = 4;
+
+	/**
+	 * The position of elements that aren't contained.
+	 */
+	private static final int ABSENT = -1;
+
+	private final int arity;
+
+	/**
+	 * The elements, in heap order.
+	 */
+	private int[] elements;
+
+	/**
+	 * The priority of the element at the same position in {@code elements}.
+	 */
+	private double[] priorities;
+
+	/**
+	 * The position of each element in the heap, indexed by element, or {@code ABSENT}.
+	 */
+	private int[] positions;
+
+	private int size = 0;
+
+	/**
+	 * Constructs an empty heap in which every entry has up to {@code DEFAULT_ARITY} children.
+	 */
+	public IndexedHeap() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Constructs an empty heap in which every entry has up to {@code arity} children.
+	 *
+	 * @param arity The number of children of each entry
+	 * @throws IllegalArgumentException if the arity is less than 2
+	 */
+	public IndexedHeap(int arity) {
+		if (arity < 2) throw new IllegalArgumentException("The arity of a heap must be at least 2");
+		this.arity = arity;
+		elements = new int[16];
+		priorities = new double[16];
+		positions = new int[16];
+		Arrays.fill(positions, ABSENT);
+	}
+
+	/**
+	 * Adds the given element with the given priority, or changes its priority if it is already contained.
+	 *
+	 * @param element The element to add; must not be negative
+	 * @param priority The priority of the element
+	 */
+	public void offer(int element, double priority) {
+		ensureElementCapacity(element + 1);
+		final int position = positions[element];
+		if (position != ABSENT) {
+			final double oldPriority = priorities[position];
+			priorities[position] = priority;
+			if (priority < oldPriority) siftUp(position);
+			else siftDown(position);
+			return;
+		}
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+			priorities = Arrays.copyOf(priorities, size * 2);
+		}
+		elements[size] = element;
+		priorities[size] = priority;
+		positions[element] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Returns the element with the lowest priority without removing it.
+	 *
+	 * @return the first element
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public int peek() {
+		if (size == 0) throw new NoSuchElementException();
+		return elements[0];
+	}
+
+	/**
+	 * Returns the lowest priority of all elements.
+	 *
+	 * @return the priority of the first element
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public double peekPriority() {
+		if (size == 0) throw new NoSuchElementException();
+		return priorities[0];
+	}
+
+	/**
+	 * Removes the element with the lowest priority and returns it.
+	 *
+	 * @return the first element
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public int poll() {
+		final int first = peek();
+		removeAt(0);
+		return first;
+	}
+
+	/**
+	 * Removes the given element, if it is contained.
+	 *
+	 * @param element The element to remove
+	 * @return {@code true} if the element was contained
+	 */
+	public boolean remove(int element) {
+		if (!contains(element)) return false;
+		removeAt(positions[element]);
+		return true;
+	}
+
+	/**
+	 * Checks whether the given element is contained.
+	 *
+	 * @param element The element to check
+	 * @return {@code true} if the element is contained
+	 */
+	public boolean contains(int element) {
+		return element >= 0 && element < positions.length && positions[element] != ABSENT;
+	}
+
+	/**
+	 * Returns the priority of the given element.
+	 *
+	 * @param element The element
+	 * @return the priority, or {@code Double.MAX_VALUE} if the element isn't contained
+	 */
+	public double getPriority(int element) {
+		if (!contains(element)) return Double.MAX_VALUE;
+		return priorities[positions[element]];
+	}
+
+	/**
+	 * Returns the element at the given position in the heap. Only the element at position {@code 0} is guaranteed
+	 * to be in order.
+	 *
+	 * @param position The position, between {@code 0} (inclusive) and {@code size()} (exclusive)
+	 * @return the element
+	 */
+	public int get(int position) {
+		if (position < 0 || position >= size) throw new IndexOutOfBoundsException(position);
+		return elements[position];
+	}
+
+	/**
+	 * Returns the number of elements.
+	 *
+	 * @return the size of the heap
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks whether the heap is empty.
+	 *
+	 * @return {@code true} if the heap contains no elements
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all elements. This takes time proportional to the number of elements, not to the largest element.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) positions[elements[i]] = ABSENT;
+		size = 0;
+	}
+
+	private void ensureElementCapacity(int capacity) {
+		if (capacity <= positions.length) return;
+		final int oldLength = positions.length;
+		positions = Arrays.copyOf(positions, Math.max(capacity, oldLength * 2));
+		Arrays.fill(positions, oldLength, positions.length, ABSENT);
+	}
+
+	private void removeAt(int position) {
+		positions[elements[position]] = ABSENT;
+		size--;
+		if (position == size) return;
+		// Move the last element into the gap and restore the heap order from there.
+		elements[position] = elements[size];
+		priorities[position] = priorities[size];
+		positions[elements[position]] = position;
+		if (position > 0 && priorities[position] < priorities[parentOf(position)]) siftUp(position);
+		else siftDown(position);
+	}
+
+	private void siftUp(int position) {
+		final int element = elements[position];
+		final double priority = priorities[position];
+		while (position > 0) {
+			final int parent = parentOf(position);
+			if (priorities[parent] <= priority) break;
+			moveTo(parent, position);
+			position = parent;
+		}
+		place(element, priority, position);
+	}
+
+	private void siftDown(int position) {
+		final int element = elements[position];
+		final double priority = priorities[position];
+		while (true) {
+			final int firstChild = arity * position + 1;
+			if (firstChild >= size) break;
+			// Find the child with the lowest priority.
+			int smallest = firstChild;
+			final int lastChild = Math.min(firstChild + arity, size);
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (priorities[child] < priorities[smallest]) smallest = child;
+			}
+			if (priorities[smallest] >= priority) break;
+			moveTo(smallest, position);
+			position = smallest;
+		}
+		place(element, priority, position);
+	}
+
+	private int parentOf(int position) {
+		return (position - 1) / arity;
+	}
+
+	private void moveTo(int from, int to) {
+		elements[to] = elements[from];
+		priorities[to] = priorities[from];
+		positions[elements[to]] = to;
+	}
+
+	private void place(int element, double priority, int position) {
+		elements[position] = element;
+		priorities[position] = priority;
+		positions[element] = position;
+	}
+}
@@ -0,0 +1,208 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A heuristic based on the distances to a few selected nodes, called landmarks, and the triangle inequality (also
+ * known as ALT).
+ * <br>
+ * For every landmark {@code L}, the cost of the shortest path between two nodes {@code v} and {@code t} is at least
+ * {@code |d(L, v) - d(L, t)|}, where {@code d} is the cost of the shortest path. The heuristic precomputes the
+ * distance from every landmark to every node, and uses the largest of these bounds as its estimate. Unlike the
+ * geometric estimate of {@code AStar}, this is admissible, and is usually much closer to the actual cost.
+ * <br>
+ * The landmarks are chosen one after another, each being the node farthest away from the ones chosen before, so that
+ * they end up spread out along the edges of the graph, where they give the best bounds.
+ * <br>
+ * The precomputation requires a graph that indexes its nodes (see {@code GraphView.getNodeIndexBound()}), and takes
+ * one run of Dijkstra's algorithm per landmark. The distances are stored in a single array, with the distances of
+ * each node next to each other, so that an estimate only needs to read two short stretches of memory.
+ * <br>
+ * The distances are only correct for the graph as it was during the precomputation. Adding edges or making them
+ * lighter afterwards can shorten paths, so that the heuristic overestimates and is no longer admissible; removing
+ * edges or making them heavier keeps it admissible, but makes it less accurate. The heuristic therefore records the
+ * modification count of the graph, and {@code isFor()} rejects the graph once it has changed in any way, so that the
+ * path-finding algorithms refuse to use an outdated heuristic. It needs to be computed again instead.
+ *
+ * @param <ND> The node data type of the graph
+ *
+ * @see Heuristic
+ */
+public class LandmarkHeuristic<ND extends JSONSerializable> implements Heuristic<ND> {
+	/**
+	 * The distance stored for nodes that a landmark can't reach.
+	 */
+	private static final double UNREACHABLE = Dijkstra.UNREACHABLE;
+
+	/**
+	 * The graph the distances were computed on.
+	 */
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * The modification count of the graph at the time the distances were computed.
+	 */
+	private final long modificationCount;
+
+	/**
+	 * The indices of the landmarks, in the order they were chosen.
+	 */
+	private final int[] landmarks;
+
+	/**
+	 * The cost of the shortest path from each landmark to each node. The distance from landmark {@code l} to the
+	 * node with index {@code i} is stored at {@code i * landmarks.length + l}.
+	 */
+	private final double[] distances;
+
+	private LandmarkHeuristic(GraphView<ND, ?> graph, long modificationCount, int[] landmarks, double[] distances) {
+		this.graph = graph;
+		this.modificationCount = modificationCount;
+		this.landmarks = landmarks;
+		this.distances = distances;
+	}
+
+	/**
+	 * Chooses landmarks in the given graph, and computes the distances from each of them to every node.
+	 *
+	 * @param graph The graph to compute the heuristic for
+	 * @param landmarkCount The number of landmarks to choose. Fewer are chosen if the graph has fewer nodes.
+	 * @param <ND> The node data type of the graph
+	 * @return the heuristic
+	 * @throws IllegalArgumentException if the graph doesn't index its nodes, or the landmark count isn't positive
+	 */
+	public static <ND extends JSONSerializable> LandmarkHeuristic<ND> compute(
+			@NotNull GraphView<ND, ?> graph,
+			int landmarkCount
+	) {
+		if (landmarkCount <= 0) throw new IllegalArgumentException("The number of landmarks must be positive");
+		final int nodeCount = graph.getNodeIndexBound();
+		if (nodeCount < 0) throw new IllegalArgumentException("Landmarks require a graph that indexes its nodes");
+		final long modificationCount = graph.getModificationCount();
+
+		// The smallest distance from each node to any of the landmarks chosen so far.
+		final double[] closestLandmarkDistances = new double[nodeCount];
+		Arrays.fill(closestLandmarkDistances, UNREACHABLE);
+		int[] landmarks = new int[landmarkCount];
+		final double[][] landmarkDistances = new double[landmarkCount][];
+		final SearchWorkspace workspace = new SearchWorkspace(nodeCount);
+
+		int count = 0;
+		while (count < landmarkCount) {
+			final int landmark = count == 0 ? firstNode(graph) : farthestNode(graph, closestLandmarkDistances);
+			if (landmark < 0) break; // Every node is a landmark already.
+			final double[] landmarkDistance = Dijkstra.distances(graph, landmark, workspace);
+			// Nodes that no landmark can reach yet keep the largest possible distance, so that the next landmark is
+			// chosen from a component without one.
+			for (int i = 0; i < nodeCount; i++)
+				closestLandmarkDistances[i] = Math.min(closestLandmarkDistances[i], landmarkDistance[i]);
+			closestLandmarkDistances[landmark] = -1; // Never choose the same landmark twice.
+			landmarks[count] = landmark;
+			landmarkDistances[count++] = landmarkDistance;
+		}
+		landmarks = Arrays.copyOf(landmarks, count);
+
+		final double[] distances = new double[nodeCount * count];
+		for (int l = 0; l < count; l++) {
+			for (int i = 0; i < nodeCount; i++) distances[i * count + l] = landmarkDistances[l][i];
+		}
+		return new LandmarkHeuristic<>(graph, modificationCount, landmarks, distances);
+	}
+
+	/**
+	 * Estimates the cost of the shortest path between the given nodes as the largest lower bound given by any of
+	 * the landmarks.
+	 *
+	 * @param node The node the path starts at
+	 * @param goal The node the path ends at
+	 * @return the estimated cost, which is never more than the actual cost
+	 */
+	@Override
+	public double estimate(GraphNode<ND> node, GraphNode<ND> goal) {
+		final int k = landmarks.length;
+		final int nodeIndex = graph.indexOf(node);
+		final int goalIndex = graph.indexOf(goal);
+		final int nodeCount = distances.length / Math.max(k, 1);
+		// Nodes without distances give no bound; this only happens if the heuristic is used on another graph.
+		if (nodeIndex < 0 || goalIndex < 0 || nodeIndex >= nodeCount || goalIndex >= nodeCount) return 0;
+		final int nodeOffset = nodeIndex * k;
+		final int goalOffset = goalIndex * k;
+		double estimate = 0;
+		for (int l = 0; l < k; l++) {
+			final double nodeDistance = distances[nodeOffset + l];
+			final double goalDistance = distances[goalOffset + l];
+			// A landmark that can't reach one of the nodes gives no bound.
+			if (nodeDistance == UNREACHABLE || goalDistance == UNREACHABLE) continue;
+			estimate = Math.max(estimate, Math.abs(nodeDistance - goalDistance));
+		}
+		return estimate;
+	}
+
+	/**
+	 * Checks whether the distances were computed on the given graph, and the graph hasn't changed since, not even
+	 * the weight of an edge.
+	 *
+	 * @param graph The graph to check
+	 * @return {@code true} if the heuristic is up to date for the graph
+	 */
+	@Override
+	public boolean isFor(GraphView<ND, ?> graph) {
+		return graph == this.graph && graph.getModificationCount() == modificationCount;
+	}
+
+	/**
+	 * Returns the number of landmarks.
+	 *
+	 * @return the number of landmarks
+	 */
+	public int getLandmarkCount() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Gets the landmark with the given number.
+	 *
+	 * @param i The number of the landmark, in the order they were chosen
+	 * @return the landmark
+	 */
+	public GraphNode<ND> getLandmark(int i) {
+		return graph.getNode(landmarks[i]);
+	}
+
+	/**
+	 * Gets the cost of the shortest path from the given landmark to the given node, as it was when the heuristic was
+	 * computed.
+	 *
+	 * @param i The number of the landmark
+	 * @param node The node
+	 * @return the cost, or {@code ShortestPathTree.UNREACHABLE} if the landmark can't reach the node
+	 */
+	public double getDistance(int i, GraphNode<ND> node) {
+		return distances[graph.indexOf(node) * landmarks.length + i];
+	}
+
+	private static int firstNode(GraphView<?, ?> graph) {
+		for (int i = 0; i < graph.getNodeIndexBound(); i++) {
+			if (graph.getNode(i) != null) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the node that is farthest away from the landmarks chosen so far. Nodes that none of them can reach are
+	 * preferred, and unused indices and existing landmarks are skipped.
+	 */
+	private static int farthestNode(GraphView<?, ?> graph, double[] closestLandmarkDistances) {
+		int farthest = -1;
+		for (int i = 0; i < closestLandmarkDistances.length; i++) {
+			if (graph.getNode(i) == null || closestLandmarkDistances[i] < 0) continue;
+			if (farthest < 0 || closestLandmarkDistances[i] > closestLandmarkDistances[farthest]) farthest = i;
+		}
+		return farthest;
+	}
+}
@@ -0,0 +1,99 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Maps the nodes of a graph to dense indices, so that search algorithms can store information about them in arrays.
+ * <br>
+ * If the graph indexes its nodes itself, its indices are used. Otherwise, nodes are assigned indices in the order in
+ * which they are first encountered. Indexers aren't thread-safe if the graph doesn't index its nodes.
+ *
+ * @param <ND> The node data type of the graph
+ */
+class NodeIndexer<ND extends JSONSerializable> {
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * Whether the graph assigns its nodes dense indices.
+	 */
+	private final boolean indexedGraph;
+
+	/**
+	 * The indices assigned to the nodes encountered so far, if the graph doesn't index its nodes.
+	 */
+	private final HashMap<GraphNode<ND>, Integer> assignedIndices;
+
+	/**
+	 * The nodes encountered so far, by the index they were assigned, if the graph doesn't index its nodes.
+	 */
+	private final ArrayList<GraphNode<ND>> nodesByAssignedIndex;
+
+	NodeIndexer(GraphView<ND, ?> graph) {
+		this.graph = graph;
+		indexedGraph = graph.getNodeIndexBound() >= 0;
+		assignedIndices = indexedGraph ? null : new HashMap<>();
+		nodesByAssignedIndex = indexedGraph ? null : new ArrayList<>();
+	}
+
+	/**
+	 * Checks whether the indices come from the graph itself. In that case, this indexer is thread-safe.
+	 *
+	 * @return {@code true} if the graph indexes its nodes
+	 */
+	boolean isIndexedGraph() {
+		return indexedGraph;
+	}
+
+	/**
+	 * Returns an upper bound for the indices currently in use.
+	 *
+	 * @return the bound
+	 */
+	int getIndexBound() {
+		return indexedGraph ? graph.getNodeIndexBound() : nodesByAssignedIndex.size();
+	}
+
+	/**
+	 * Gets the index of the given node, assigning it one if the graph doesn't index its nodes and the node doesn't
+	 * have one yet.
+	 *
+	 * @param node The node to get the index of
+	 * @return the index of the node
+	 */
+	int indexOf(GraphNode<ND> node) {
+		if (indexedGraph) return graph.indexOf(node);
+		final Integer index = assignedIndices.get(node);
+		if (index != null) return index;
+		assignedIndices.put(node, nodesByAssignedIndex.size());
+		nodesByAssignedIndex.add(node);
+		return nodesByAssignedIndex.size() - 1;
+	}
+
+	/**
+	 * Gets the index of the given node without assigning it one.
+	 *
+	 * @param node The node to get the index of
+	 * @return the index of the node, or {@code -1} if it doesn't have one
+	 */
+	int findIndex(GraphNode<ND> node) {
+		if (indexedGraph) return graph.indexOf(node);
+		final Integer index = assignedIndices.get(node);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Gets the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the node
+	 */
+	GraphNode<ND> nodeAt(int index) {
+		if (indexedGraph) return graph.getNode(index);
+		return nodesByAssignedIndex.get(index);
+	}
+}
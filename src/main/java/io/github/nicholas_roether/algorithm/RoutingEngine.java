@@ -0,0 +1,403 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Answers batches of path queries on a graph in parallel.
+ * <br>
+ * The queries of a batch are split into chunks that are run on a fork-join pool, so that idle threads can take over
+ * the work of busy ones. Each query is answered by {@code AStar}, using a workspace from the pool of the thread it
+ * runs on, which is reused by all queries that thread answers. This way, the memory allocated per query only depends
+ * on the query itself, mostly its search and the route found, rather than on the size of the graph.
+ * <br>
+ * The results can either be collected in the order of the queries, using {@code routeAll()}, or be handed to a
+ * consumer as soon as each of them is found, using {@code routeEach()}. The engine keeps statistics of all batches it
+ * answered, including the number of queries answered per second.
+ * <br>
+ * The graph must not be modified while a batch is running, and must support being read from several threads at once,
+ * which {@code Graph} and {@code CompactGraph} do. The heuristic must be safe to call from several threads as well.
+ *
+ * @param <ND> The type of data stored in the graph nodes used. Must extend AStarNodeData.
+ * @param <ED> The type of data stored in the graph edges used.
+ *
+ * @see AStar
+ */
+public class RoutingEngine<ND extends AStarNodeData, ED extends JSONSerializable> {
+	/**
+	 * The number of chunks per thread a batch is split into, so that the work can be balanced between threads even if
+	 * some queries take much longer than others.
+	 */
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	/**
+	 * The graph the queries are answered on.
+	 */
+	public final GraphView<ND, ED> graph;
+
+	/**
+	 * The pool the queries run on.
+	 */
+	private final ForkJoinPool pool;
+
+	private final Heuristic<ND> heuristic;
+
+	private final LongAdder queryCount = new LongAdder();
+
+	private final LongAdder foundCount = new LongAdder();
+
+	private final LongAdder expandedNodeCount = new LongAdder();
+
+	/**
+	 * Guards the fields that track the time spent answering batches.
+	 */
+	private final Object timingLock = new Object();
+
+	/**
+	 * The number of batches currently running.
+	 */
+	private int runningBatchCount = 0;
+
+	/**
+	 * The time at which the currently running batches started to run, if there are any.
+	 */
+	private long busySince;
+
+	/**
+	 * The total time during which at least one batch was running, in nanoseconds, excluding the current period.
+	 */
+	private long elapsedNanos = 0;
+
+	/**
+	 * Constructs an engine that answers queries on the common pool, using the geometric estimate.
+	 *
+	 * @param graph The graph to answer queries on
+	 */
+	public RoutingEngine(@NotNull GraphView<ND, ED> graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructs an engine that answers queries on the given pool, using the geometric estimate.
+	 *
+	 * @param graph The graph to answer queries on
+	 * @param pool The pool to run the queries on
+	 */
+	public RoutingEngine(@NotNull GraphView<ND, ED> graph, @NotNull ForkJoinPool pool) {
+		this(graph, pool, AStar::estimateCost);
+	}
+
+	/**
+	 * Constructs an engine that answers queries on the given pool.
+	 *
+	 * @param graph The graph to answer queries on
+	 * @param pool The pool to run the queries on
+	 * @param heuristic The heuristic to estimate the cost to reach the goal with
+	 */
+	public RoutingEngine(
+			@NotNull GraphView<ND, ED> graph,
+			@NotNull ForkJoinPool pool,
+			@NotNull Heuristic<ND> heuristic
+	) {
+		this.graph = graph;
+		this.pool = pool;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Answers all given queries, and waits until all of them are done.
+	 *
+	 * @param queries The queries to answer
+	 * @return the routes, in the same order as the queries
+	 * @throws IllegalArgumentException if the graph doesn't contain the start or goal of one of the queries, or the
+	 * 									heuristic wasn't computed for the graph in its current state
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Route<ND>> routeAll(@NotNull List<Query<ND>> queries) {
+		final Route<ND>[] routes = new Route[queries.size()];
+		run(queries, route -> routes[route.index] = route);
+		// Joining the tasks makes their writes visible to this thread.
+		return Collections.unmodifiableList(Arrays.asList(routes));
+	}
+
+	/**
+	 * Answers all given queries, and hands each route to the given consumer as soon as it is found. The consumer is
+	 * called from the threads of the pool, so it must be thread-safe. This method waits until all queries are done.
+	 *
+	 * @param queries The queries to answer
+	 * @param consumer The consumer to hand the routes to
+	 * @throws IllegalArgumentException if the graph doesn't contain the start or goal of one of the queries, or the
+	 * 									heuristic wasn't computed for the graph in its current state
+	 */
+	public void routeEach(@NotNull List<Query<ND>> queries, @NotNull Consumer<Route<ND>> consumer) {
+		run(queries, consumer);
+	}
+
+	private void run(List<Query<ND>> queries, Consumer<Route<ND>> consumer) {
+		// Check the queries first, so that a batch either fails as a whole or not at all.
+		final ArrayList<Query<ND>> batch = new ArrayList<>(queries);
+		if (!heuristic.isFor(graph))
+			throw new IllegalArgumentException("The heuristic must be computed for the current graph");
+		for (Query<ND> query : batch) {
+			if (!graph.contains(query.start) || !graph.contains(query.goal))
+				throw new IllegalArgumentException("Start and end nodes must be contained in the graph");
+		}
+		if (batch.isEmpty()) return;
+		final int chunkSize = Math.max(1, batch.size() / (pool.getParallelism() * CHUNKS_PER_THREAD));
+		// Batches running at the same time share their time, so that it isn't counted twice.
+		synchronized (timingLock) {
+			if (runningBatchCount++ == 0) busySince = System.nanoTime();
+		}
+		try {
+			pool.invoke(new RouteTask(batch, 0, batch.size(), chunkSize, consumer));
+		} finally {
+			synchronized (timingLock) {
+				if (--runningBatchCount == 0) elapsedNanos += System.nanoTime() - busySince;
+			}
+		}
+	}
+
+	/**
+	 * Answers a single query using the given workspace.
+	 */
+	private Route<ND> route(Query<ND> query, int index, SearchWorkspace workspace) {
+		final long startTime = System.nanoTime();
+		final AStar<ND, ED> aStar = new AStar<>(graph, query.start, query.goal, workspace, heuristic);
+		final List<GraphNode<ND>> path = aStar.execute();
+		final double cost = path == null ? Double.MAX_VALUE : aStar.getCostFor(query.goal);
+		final Route<ND> route = new Route<>(
+				query,
+				index,
+				path,
+				cost,
+				aStar.getExpandedNodeCount(),
+				System.nanoTime() - startTime
+		);
+		queryCount.increment();
+		if (path != null) foundCount.increment();
+		expandedNodeCount.add(route.expandedNodeCount);
+		return route;
+	}
+
+	/**
+	 * Forgets the statistics of all previous batches.
+	 */
+	public void resetStatistics() {
+		queryCount.reset();
+		foundCount.reset();
+		expandedNodeCount.reset();
+		synchronized (timingLock) {
+			elapsedNanos = 0;
+			busySince = System.nanoTime();
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Getters
+
+	/**
+	 * Gets the pool the queries run on.
+	 *
+	 * @return the pool
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Gets the number of queries answered since the statistics were last reset.
+	 *
+	 * @return the number of queries
+	 */
+	public long getQueryCount() {
+		return queryCount.sum();
+	}
+
+	/**
+	 * Gets the number of queries for which a path was found since the statistics were last reset.
+	 *
+	 * @return the number of found routes
+	 */
+	public long getFoundCount() {
+		return foundCount.sum();
+	}
+
+	/**
+	 * Gets the number of nodes expanded by all queries since the statistics were last reset.
+	 *
+	 * @return the number of expanded nodes
+	 */
+	public long getExpandedNodeCount() {
+		return expandedNodeCount.sum();
+	}
+
+	/**
+	 * Gets the wall-clock time during which at least one batch was running, since the statistics were last reset.
+	 * Batches that run at the same time, for example because they were started from different threads, are only
+	 * counted once, so this is not the sum of the durations of the batches.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		synchronized (timingLock) {
+			if (runningBatchCount == 0) return elapsedNanos;
+			return elapsedNanos + System.nanoTime() - busySince;
+		}
+	}
+
+	/**
+	 * Gets the number of queries answered per second of wall-clock time during which batches were running, since the
+	 * statistics were last reset.
+	 *
+	 * @return the throughput, or {@code 0} if no batch was answered yet
+	 *
+	 * @see #getElapsedNanos()
+	 */
+	public double getThroughput() {
+		final long nanos = getElapsedNanos();
+		if (nanos == 0) return 0;
+		return queryCount.sum() * 1e9 / nanos;
+	}
+
+	/**
+	 * A request for the shortest path between two nodes.
+	 *
+	 * @param <ND> The node data type of the graph
+	 */
+	public static class Query<ND extends AStarNodeData> {
+		/**
+		 * The node the path starts at.
+		 */
+		public final GraphNode<ND> start;
+
+		/**
+		 * The node the path ends at.
+		 */
+		public final GraphNode<ND> goal;
+
+		/**
+		 * Constructs a query.
+		 *
+		 * @param start The node the path starts at
+		 * @param goal The node the path ends at
+		 */
+		public Query(@NotNull GraphNode<ND> start, @NotNull GraphNode<ND> goal) {
+			this.start = start;
+			this.goal = goal;
+		}
+
+		@Override
+		public String toString() {
+			return "Query{" + start + " -> " + goal + "}";
+		}
+	}
+
+	/**
+	 * The answer to a query.
+	 *
+	 * @param <ND> The node data type of the graph
+	 */
+	public static class Route<ND extends AStarNodeData> {
+		/**
+		 * The query this route answers.
+		 */
+		public final Query<ND> query;
+
+		/**
+		 * The position of the query in its batch.
+		 */
+		public final int index;
+
+		/**
+		 * The path found, in form of an ordered list of the nodes it goes along, or {@code null} if there is no path.
+		 */
+		public final List<GraphNode<ND>> path;
+
+		/**
+		 * The cost of the path, or {@code Double.MAX_VALUE} if there is no path.
+		 */
+		public final double cost;
+
+		/**
+		 * The number of nodes expanded to find the path.
+		 */
+		public final int expandedNodeCount;
+
+		/**
+		 * The time it took to answer the query, in nanoseconds.
+		 */
+		public final long nanos;
+
+		Route(Query<ND> query, int index, List<GraphNode<ND>> path, double cost, int expandedNodeCount, long nanos) {
+			this.query = query;
+			this.index = index;
+			this.path = path;
+			this.cost = cost;
+			this.expandedNodeCount = expandedNodeCount;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * Checks whether a path was found.
+		 *
+		 * @return {@code true} if there is a path
+		 */
+		public boolean isFound() {
+			return path != null;
+		}
+	}
+
+	/**
+	 * Answers a range of the queries of a batch, splitting it in half until it is small enough to answer on a single
+	 * thread.
+	 */
+	@SuppressWarnings("serial")
+	private class RouteTask extends RecursiveAction {
+		private final List<Query<ND>> queries;
+
+		private final int from;
+
+		private final int to;
+
+		private final int chunkSize;
+
+		private final Consumer<Route<ND>> consumer;
+
+		RouteTask(List<Query<ND>> queries, int from, int to, int chunkSize, Consumer<Route<ND>> consumer) {
+			this.queries = queries;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.consumer = consumer;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > chunkSize) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(
+						new RouteTask(queries, from, middle, chunkSize, consumer),
+						new RouteTask(queries, middle, to, chunkSize, consumer)
+				);
+				return;
+			}
+			final SearchWorkspace workspace = SearchWorkspace.acquire();
+			try {
+				for (int i = from; i < to; i++) consumer.accept(route(queries.get(i), i, workspace));
+			} finally {
+				SearchWorkspace.release(workspace);
+			}
+		}
+	}
+}
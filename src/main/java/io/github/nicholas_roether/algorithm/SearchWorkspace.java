@@ -0,0 +1,236 @@
+package io.github.nicholas_roether.algorithm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * The memory a path-finding search works in: the cost to reach each node, the estimated cost of the path through it,
+ * the node it is reached from, and the queue of nodes still to check. Nodes are identified by dense indices, and all
+ * data is kept in primitive arrays indexed by them.
+ * <br>
+ * A workspace can be reused for any number of searches, one after another. Instead of clearing its arrays before
+ * each search, which would take time proportional to the size of the graph, each entry is stamped with the
+ * generation of the search that wrote it; entries with an old stamp are treated as empty. Starting a new search
+ * therefore takes constant time.
+ * <br>
+ * Workspaces aren't thread-safe. To avoid allocating a new one for every search, workspaces can be borrowed from a
+ * per-thread pool using {@code acquire()}, and have to be returned using {@code release()} once the search is done.
+ */
+public class SearchWorkspace {
+	/**
+	 * The workspaces that are currently not in use, per thread.
+	 */
+	private static final ThreadLocal<ArrayDeque<SearchWorkspace>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+	/**
+	 * The maximum number of unused workspaces kept per thread.
+	 */
+	private static final int MAX_POOLED = 4;
+
+	/**
+	 * The value of {@code parents} for nodes that aren't reached via another node.
+	 */
+	public static final int NO_PARENT = -1;
+
+	/**
+	 * The cost to reach each node via the best known path.
+	 */
+	private double[] costs;
+
+	/**
+	 * The estimated cost of the best path via each node to the goal.
+	 */
+	private double[] estimates;
+
+	/**
+	 * The node via which each node is reached on the best known path.
+	 */
+	private int[] parents;
+
+	/**
+	 * The generation of the search that last wrote the entries of each node.
+	 */
+	private int[] stamps;
+
+	/**
+	 * The generation of the current search. Always at least {@code 1}, so that the initial stamps of {@code 0} are
+	 * never current.
+	 */
+	private int generation = 1;
+
+	/**
+	 * The nodes reached in the current search, in the order they were first reached.
+	 */
+	private int[] reached;
+
+	private int reachedCount = 0;
+
+	/**
+	 * The nodes that still need to be checked in the current search.
+	 */
+	private final IndexedHeap openNodes = new IndexedHeap();
+
+	/**
+	 * Constructs an empty workspace. Its arrays grow as needed.
+	 */
+	public SearchWorkspace() {
+		this(16);
+	}
+
+	/**
+	 * Constructs an empty workspace with room for the given number of nodes.
+	 *
+	 * @param capacity The number of nodes to make room for
+	 */
+	public SearchWorkspace(int capacity) {
+		capacity = Math.max(capacity, 1);
+		costs = new double[capacity];
+		estimates = new double[capacity];
+		parents = new int[capacity];
+		stamps = new int[capacity];
+		reached = new int[capacity];
+	}
+
+	/**
+	 * Borrows a workspace from the pool of the current thread, or creates a new one if the pool is empty. The
+	 * workspace is reset, and should be returned using {@code release()} once it isn't needed anymore.
+	 *
+	 * @return the workspace
+	 */
+	public static SearchWorkspace acquire() {
+		final SearchWorkspace workspace = POOL.get().poll();
+		if (workspace == null) return new SearchWorkspace();
+		workspace.reset();
+		return workspace;
+	}
+
+	/**
+	 * Returns a workspace to the pool of the current thread, so that it can be used by later searches. The
+	 * workspace must not be used afterwards.
+	 *
+	 * @param workspace The workspace to return
+	 */
+	public static void release(@NotNull SearchWorkspace workspace) {
+		final ArrayDeque<SearchWorkspace> pool = POOL.get();
+		if (pool.size() < MAX_POOLED) pool.push(workspace);
+	}
+
+	/**
+	 * Forgets the data of the previous search in constant time.
+	 */
+	public void reset() {
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			// The stamps would overflow, so clear them once and start over.
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+		reachedCount = 0;
+		openNodes.clear();
+	}
+
+	/**
+	 * Makes sure the workspace has room for nodes with indices lower than the given capacity.
+	 *
+	 * @param capacity The number of nodes to make room for
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= stamps.length) return;
+		final int newLength = Math.max(capacity, stamps.length + (stamps.length >> 1));
+		costs = Arrays.copyOf(costs, newLength);
+		estimates = Arrays.copyOf(estimates, newLength);
+		parents = Arrays.copyOf(parents, newLength);
+		stamps = Arrays.copyOf(stamps, newLength);
+	}
+
+	/**
+	 * Checks whether the node with the given index was reached in the current search.
+	 *
+	 * @param node The index of the node
+	 * @return {@code true} if the node was reached
+	 */
+	public boolean isReached(int node) {
+		return node >= 0 && node < stamps.length && stamps[node] == generation;
+	}
+
+	/**
+	 * Records a path to the node with the given index.
+	 *
+	 * @param node The index of the node
+	 * @param cost The cost to reach the node
+	 * @param estimate The estimated cost of the path via the node to the goal
+	 * @param parent The index of the node via which the node is reached, or {@code NO_PARENT}
+	 */
+	public void reach(int node, double cost, double estimate, int parent) {
+		ensureCapacity(node + 1);
+		if (stamps[node] != generation) {
+			stamps[node] = generation;
+			if (reachedCount == reached.length) reached = Arrays.copyOf(reached, reachedCount * 2);
+			reached[reachedCount++] = node;
+		}
+		costs[node] = cost;
+		estimates[node] = estimate;
+		parents[node] = parent;
+	}
+
+	/**
+	 * Returns the cost to reach the node with the given index.
+	 *
+	 * @param node The index of the node
+	 * @return the cost, or {@code Double.MAX_VALUE} if the node wasn't reached
+	 */
+	public double getCost(int node) {
+		return isReached(node) ? costs[node] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the estimated cost of the path via the node with the given index to the goal.
+	 *
+	 * @param node The index of the node
+	 * @return the estimated cost, or {@code Double.MAX_VALUE} if the node wasn't reached
+	 */
+	public double getEstimate(int node) {
+		return isReached(node) ? estimates[node] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the index of the node via which the node with the given index is reached.
+	 *
+	 * @param node The index of the node
+	 * @return the index of the previous node, or {@code NO_PARENT} if there is none
+	 */
+	public int getParent(int node) {
+		return isReached(node) ? parents[node] : NO_PARENT;
+	}
+
+	/**
+	 * Returns the number of nodes reached in the current search.
+	 *
+	 * @return the number of reached nodes
+	 */
+	public int getReachedCount() {
+		return reachedCount;
+	}
+
+	/**
+	 * Returns the index of the i-th node reached in the current search.
+	 *
+	 * @param i The position of the node in the order the nodes were reached
+	 * @return the index of the node
+	 */
+	public int getReached(int i) {
+		if (i < 0 || i >= reachedCount) throw new IndexOutOfBoundsException(i);
+		return reached[i];
+	}
+
+	/**
+	 * Returns the queue of the nodes that still need to be checked in the current search.
+	 *
+	 * @return the queue of open nodes
+	 */
+	public IndexedHeap getOpenNodes() {
+		return openNodes;
+	}
+}
@@ -0,0 +1,122 @@
+package io.github.nicholas_roether.algorithm;
+
+import io.github.nicholas_roether.JSONSerializable;
+import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shortest paths from one node to all nodes of a graph, as computed by {@code DeltaStepping}.
+ * <br>
+ * The paths are stored as two primitive arrays indexed by the indices of the graph: the cost of the shortest path to
+ * each node, and the node via which each node is reached on it. Both arrays can be accessed directly for bulk
+ * processing.
+ *
+ * @param <ND> The node data type of the graph
+ *
+ * @see DeltaStepping
+ */
+public class ShortestPathTree<ND extends JSONSerializable> {
+	/**
+	 * The distance of nodes that can't be reached from the source.
+	 */
+	public static final double UNREACHABLE = Double.MAX_VALUE;
+
+	/**
+	 * The parent of the source, of nodes that can't be reached, and of unused indices.
+	 */
+	public static final int NO_PARENT = -1;
+
+	/**
+	 * The graph the paths were computed on.
+	 */
+	private final GraphView<ND, ?> graph;
+
+	/**
+	 * The index of the node the paths start at.
+	 */
+	private final int source;
+
+	private final double[] distances;
+
+	private final int[] parents;
+
+	ShortestPathTree(GraphView<ND, ?> graph, int source, double[] distances, int[] parents) {
+		this.graph = graph;
+		this.source = source;
+		this.distances = distances;
+		this.parents = parents;
+	}
+
+	/**
+	 * Gets the node the paths start at.
+	 *
+	 * @return the source node
+	 */
+	public GraphNode<ND> getSource() {
+		return graph.getNode(source);
+	}
+
+	/**
+	 * Returns the cost of the shortest path to each node, by index, with {@code UNREACHABLE} for nodes that can't be
+	 * reached and unused indices. The array isn't copied, so it must not be modified.
+	 *
+	 * @return the distances
+	 */
+	public double[] getDistances() {
+		return distances;
+	}
+
+	/**
+	 * Returns the index of the node via which each node is reached on its shortest path, by index, with
+	 * {@code NO_PARENT} for the source and nodes that can't be reached. The array isn't copied, so it must not be
+	 * modified.
+	 *
+	 * @return the parents
+	 */
+	public int[] getParents() {
+		return parents;
+	}
+
+	/**
+	 * Gets the cost of the shortest path to the given node.
+	 *
+	 * @param node The node
+	 * @return the cost, or {@code UNREACHABLE} if the node can't be reached or isn't part of the graph
+	 */
+	public double getDistance(GraphNode<ND> node) {
+		final int index = graph.indexOf(node);
+		if (index < 0 || index >= distances.length) return UNREACHABLE;
+		return distances[index];
+	}
+
+	/**
+	 * Checks whether there is a path to the given node.
+	 *
+	 * @param node The node
+	 * @return {@code true} if the node can be reached
+	 */
+	public boolean isReachable(GraphNode<ND> node) {
+		return getDistance(node) != UNREACHABLE;
+	}
+
+	/**
+	 * Reconstructs the shortest path to the given node.
+	 *
+	 * @param node The node to find the path to
+	 * @return the path in form of an ordered list of the nodes it goes along, or {@code null} if the node can't be
+	 * 		   reached.
+	 */
+	public List<GraphNode<ND>> getPathTo(GraphNode<ND> node) {
+		if (!isReachable(node)) return null;
+		final ArrayList<GraphNode<ND>> path = new ArrayList<>();
+		for (int index = graph.indexOf(node); index != NO_PARENT; index = parents[index])
+			path.add(graph.getNode(index));
+		// The nodes were added from the end of the path to the start.
+		Collections.reverse(path);
+		return Collections.unmodifiableList(path);
+	}
+}
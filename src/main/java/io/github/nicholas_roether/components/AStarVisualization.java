@@ -6,6 +6,7 @@ import io.github.nicholas_roether.draw.Component;
 import io.github.nicholas_roether.general.EdgeData;
 import io.github.nicholas_roether.general.NodeData;
 import io.github.nicholas_roether.graph.Graph;
+import io.github.nicholas_roether.graph.GraphEdge;
 import io.github.nicholas_roether.graph.GraphNeighbor;
 import io.github.nicholas_roether.graph.GraphNode;
 
@@ -46,11 +47,10 @@ public class AStarVisualization extends Component {
 
 	private void setStateAlongPath(GraphNode<NodeData> node, NodeData.State nodeState, EdgeData.State edgeState) {
 		node.data.setState(nodeState);
-		final GraphNode<NodeData> pathFrom = aStar.getPathMap().get(node);
+		final GraphNode<NodeData> pathFrom = aStar.getPredecessor(node);
 		if (pathFrom == null) return;
-		graph.getNeighbors(node).forEach(neighbor -> {
-			if (neighbor.node.equals(pathFrom)) neighbor.edgeData.setState(edgeState);
-		});
+		final GraphEdge<NodeData, EdgeData> edge = graph.getEdge(node, pathFrom);
+		if (edge != null) edge.data.setState(edgeState);
 		setStateAlongPath(pathFrom, nodeState, edgeState);
 	}
 
@@ -76,9 +76,9 @@ public class AStarVisualization extends Component {
 
 		if (stage == Stage.SCANNING) {
 			aStar.getCurrent().data.setState(NodeData.State.CHECKING);
-			graph.getNeighbors(aStar.getCurrent()).forEach(neighbor -> {
-				if (!neighbor.node.equals(aStar.getPathMap().get(aStar.getCurrent())))
-					neighbor.edgeData.setState(EdgeData.State.CHECKING);
+			graph.forEachNeighbor(aStar.getCurrent(), (neighbor, edgeWeight, edgeData) -> {
+				if (!neighbor.equals(aStar.getPredecessor(aStar.getCurrent())))
+					edgeData.setState(EdgeData.State.CHECKING);
 			});
 		} else if (stage == Stage.FINISHED) {
 			setStateAlongPath(goal, NodeData.State.FINAL, EdgeData.State.FINAL);
@@ -115,12 +115,8 @@ public class AStarVisualization extends Component {
 			final GraphNode<NodeData> node1 = path.get(i);
 			final GraphNode<NodeData> node2 = path.get(i + 1);
 
-			for (GraphNeighbor<NodeData, EdgeData> neighbor : graph.getNeighbors(node1)) {
-				if (neighbor.node == node2) {
-					neighbors.add(neighbor);
-					break;
-				}
-			}
+			final GraphEdge<NodeData, EdgeData> edge = graph.getEdge(node1, node2);
+			if (edge != null) neighbors.add(new GraphNeighbor<>(node2, edge.getWeight(), edge.data));
 		}
 		return neighbors;
 	}
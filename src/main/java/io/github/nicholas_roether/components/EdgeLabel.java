@@ -37,6 +37,6 @@ public class EdgeLabel extends Component {
 		p.textSize(20);
 		p.fill(255, 255, 255);
 		p.textAlign(CENTER);
-		p.text(Double.toString(edge.weight), center.x, center.y);
+		p.text(Double.toString(edge.getWeight()), center.x, center.y);
 	}
 }
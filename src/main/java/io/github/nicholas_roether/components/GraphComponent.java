@@ -8,14 +8,13 @@ import io.github.nicholas_roether.general.NodeData;
 import io.github.nicholas_roether.graph.Graph;
 import io.github.nicholas_roether.graph.GraphEdge;
 import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.GraphSnapshot;
 import io.github.nicholas_roether.physics.PhysicsEngine;
 import io.github.nicholas_roether.physics_graph.NodePhysics;
 import processing.core.PVector;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * The graphical component representing a graph with physics.
@@ -32,22 +31,16 @@ public class GraphComponent extends Component {
 	public final List<String> anchors;
 
 	/**
-	 * A set of the nodes that are currently being rendered. Updated
+	 * A snapshot of the graph as it is currently being rendered. Updated
 	 * whenever the component is rebuilt.
 	 */
-	private Set<GraphNode<NodeData>> nodes;
+	private GraphSnapshot<NodeData, EdgeData> snapshot;
 
 	/**
 	 * A list of all node components that are children to this graph component.
 	 */
 	private final List<NodeComponent> nodeComponents = new ArrayList<>();
 
-	/**
-	 * A set of the nodes that are currently being rendered. Updated
-	 * whenever the component is rebuilt.
-	 */
-	private List<GraphEdge<NodeData, EdgeData>> edges;
-
 	/**
 	 * The physics engine in charge of simulating the nodes.
 	 *
@@ -68,7 +61,7 @@ public class GraphComponent extends Component {
 	public GraphComponent(Graph<NodeData, EdgeData> graph, List<String> anchors) {
 		this.graph = graph;
 		this.anchors = anchors;
-		this.nodes = new HashSet<>();
+		this.snapshot = graph.snapshot();
 		this.physicsEngine = new PhysicsEngine<>();
 	}
 
@@ -81,12 +74,11 @@ public class GraphComponent extends Component {
 		nodeComponents.clear();
 
 		// Get current nodes and edges from the graph.
-		nodes = Set.copyOf(graph.getNodes());
-		edges = List.copyOf(graph.getEdges());
+		snapshot = graph.snapshot();
 
 		final List<Component> components = new ArrayList<>();
 
-		for (GraphNode<NodeData> node : nodes) {
+		for (GraphNode<NodeData> node : snapshot.getNodes()) {
 			// Create a NodeComponent for each node
 			final NodeComponent nodeComponent = new NodeComponent(node, graph, anchors.contains(node.name));
 
@@ -97,7 +89,7 @@ public class GraphComponent extends Component {
 			components.add(nodeComponent);
 		}
 
-		for (GraphEdge<NodeData, EdgeData> edge : edges) {
+		for (GraphEdge<NodeData, EdgeData> edge : snapshot.getEdges()) {
 			// Create an EdgeComponent for each edge
 			components.add(new EdgeComponent(edge));
 
@@ -111,7 +103,7 @@ public class GraphComponent extends Component {
 	public void setRunning(boolean running) {
 		if (running != this.running) {
 			// Reset velocities and accelerations when starting / stopping the simulation
-			nodes.forEach(node -> {
+			snapshot.getNodes().forEach(node -> {
 				node.data.setVelocity(new PVector());
 				node.data.setAcceleration(new PVector());
 			});
@@ -130,8 +122,8 @@ public class GraphComponent extends Component {
 
 	@Override
 	public boolean shouldRebuild() {
-		// Rebuild if the graph contains new nodes or edges
-		return !nodes.equals(graph.getNodes()) || !edges.equals(graph.getEdges());
+		// Rebuild if nodes or edges were added to or removed from the graph
+		return graph.getVersion() != snapshot.getVersion();
 	}
 
 	@Override
@@ -8,6 +8,7 @@ import io.github.nicholas_roether.elements.NodeElement;
 import io.github.nicholas_roether.general.GraphWithData;
 import io.github.nicholas_roether.general.NodeData;
 
+import io.github.nicholas_roether.graph.GraphChangeEvent;
 import io.github.nicholas_roether.graph.GraphNode;
 import org.jetbrains.annotations.NotNull;
 import processing.core.PVector;
@@ -23,7 +24,7 @@ public class NodeAdder extends BoundedComponent {
 
 	private final BiFunction<Float, Float, Boolean> bounds;
 
-	private int lastNodeLength = 0;
+	private boolean nodeRemoved = false;
 	private boolean enabled = false;
 	private int nameIndex = 0;
 
@@ -31,6 +32,9 @@ public class NodeAdder extends BoundedComponent {
 		super(Z_INDEX);
 		this.graph = graph;
 		this.bounds = bounds;
+		graph.addListener(event -> {
+			if (event.type == GraphChangeEvent.Type.NODE_REMOVED) nodeRemoved = true;
+		});
 	}
 
 
@@ -45,14 +49,13 @@ public class NodeAdder extends BoundedComponent {
 	@Override
 	public void build(ComponentRegistry registry) {
 		nameIndex = 0;
-		lastNodeLength = graph.getNodes().size();
+		nodeRemoved = false;
 	}
 
 	@Override
 	public boolean shouldRebuild() {
-		if (graph.getNodes().size() > lastNodeLength)
-			lastNodeLength = graph.getNodes().size();
-		return graph.getNodes().size() < lastNodeLength;
+		// Rebuild to reset the node names if a node was removed
+		return nodeRemoved;
 	}
 
 	@Override
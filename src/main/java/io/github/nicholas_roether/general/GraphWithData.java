@@ -2,6 +2,7 @@ package io.github.nicholas_roether.general;
 
 import io.github.nicholas_roether.graph.Graph;
 import io.github.nicholas_roether.graph.GraphEdge;
+import io.github.nicholas_roether.graph.GraphMutator;
 import io.github.nicholas_roether.graph.GraphNode;
 import org.jetbrains.annotations.NotNull;
 import processing.core.PVector;
@@ -38,27 +39,30 @@ public class GraphWithData extends Graph<NodeData, EdgeData> {
 		final JSONArray edgesArr = json.getJSONArray("edges");
 
 		final GraphWithData graph = new GraphWithData();
-		for (int i = 0; i < nodesArr.size(); i++) {
-			addNodeFromJSON(graph, nodesArr.getJSONObject(i));
-		}
-		for (int i = 0; i < edgesArr.size(); i++) {
-			addEdgeFromJSON(graph, edgesArr.getJSONObject(i));
-		}
+		// Load the whole graph in one batch, so that it is only reported as a single change
+		graph.batch(mutator -> {
+			for (int i = 0; i < nodesArr.size(); i++) {
+				addNodeFromJSON(mutator, nodesArr.getJSONObject(i));
+			}
+			for (int i = 0; i < edgesArr.size(); i++) {
+				addEdgeFromJSON(mutator, edgesArr.getJSONObject(i));
+			}
+		});
 		return graph;
 	}
 
-	private static void addNodeFromJSON(GraphWithData graph, JSONObject json) {
+	private static void addNodeFromJSON(GraphMutator<NodeData, EdgeData> mutator, JSONObject json) {
 		final String name = json.getString("name");
 		final NodeData nodeData = NodeData.fromJSON(json.getJSONObject("data"));
 
-		graph.addNode(name, nodeData);
+		mutator.addNode(name, nodeData);
 	}
 
-	private static void addEdgeFromJSON(GraphWithData graph, JSONObject json) {
+	private static void addEdgeFromJSON(GraphMutator<NodeData, EdgeData> mutator, JSONObject json) {
 		final String[] nodeNames = json.getJSONArray("nodes").getStringArray();
 		final double weight = json.getDouble("weight", 1.0);
 		final EdgeData data = EdgeData.fromJSON(json.getJSONObject("data"));
 
-		graph.addEdge(graph.getNode(nodeNames[0]), graph.getNode(nodeNames[1]), weight, data);
+		mutator.addEdge(mutator.getNode(nodeNames[0]), mutator.getNode(nodeNames[1]), weight, data);
 	}
 }
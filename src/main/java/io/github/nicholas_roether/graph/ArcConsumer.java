@@ -0,0 +1,19 @@
+package io.github.nicholas_roether.graph;
+
+/**
+ * A callback that receives the arcs leaving a node one by one, identifying the neighbors only by their index. Unlike
+ * {@code NeighborConsumer}, this doesn't require a node object for every neighbor, which some graphs, like
+ * {@code MappedGraph}, would have to create first.
+ *
+ * @see GraphView#forEachArc(int, ArcConsumer)
+ */
+@FunctionalInterface
+public interface ArcConsumer {
+	/**
+	 * Called once for each arc.
+	 *
+	 * @param target The index of the node the arc points to
+	 * @param weight The weight of the arc
+	 */
+	void accept(int target, double weight);
+}
@@ -0,0 +1,344 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a graph, stored in compressed sparse row form.
+ * <br>
+ * Each node is identified by an index. The arcs leaving the node with index {@code i} are stored at the
+ * positions {@code getArcStart(i)} (inclusive) to {@code getArcEnd(i)} (exclusive) of flat primitive arrays,
+ * which makes iterating over the neighbors of a node very cache-friendly. Since edges in a graph aren't
+ * directed, every edge is stored as two arcs, one for each direction, except for self-loops, which are stored
+ * once.
+ * <br>
+ * Compact graphs are created using {@code Graph.freeze()}, and don't change when the graph they were created
+ * from is modified afterwards. Node and edge data is shared with the original graph, however. Initially, the index
+ * of each node is its id, but the nodes can be relabeled using {@code reorder()} to improve memory locality.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ *
+ * @see Graph#freeze()
+ * @see NodeReordering
+ */
+public class CompactGraph<ND extends JSONSerializable, ED extends JSONSerializable> implements GraphView<ND, ED> {
+	/**
+	 * The nodes of the graph, indexed by their index in this snapshot. Unused indices contain {@code null}.
+	 */
+	private final GraphNode<ND>[] nodes;
+
+	/**
+	 * The offsets of the arcs of each node. The arcs of the node with index {@code i} are stored from
+	 * {@code offsets[i]} to {@code offsets[i + 1]}.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * The index of the node each arc points to.
+	 */
+	private final int[] targets;
+
+	/**
+	 * The weight of each arc.
+	 */
+	private final double[] weights;
+
+	/**
+	 * The edge each arc belongs to.
+	 */
+	private final GraphEdge<ND, ED>[] edges;
+
+	/**
+	 * Maps the names of the nodes to their index. Unlike the ids of the nodes, which belong to the graph this
+	 * snapshot was created from and change when a node is removed from it, this never changes.
+	 */
+	private final Map<String, Integer> indexByName;
+
+	CompactGraph(GraphNode<ND>[] nodes, int[] offsets, int[] targets, double[] weights, GraphEdge<ND, ED>[] edges) {
+		this.nodes = nodes;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.edges = edges;
+		this.indexByName = indexByName(nodes);
+	}
+
+	/**
+	 * Returns an upper bound for the node indices in this graph. All indices are between {@code 0} (inclusive)
+	 * and this bound (exclusive), but not every index in between necessarily belongs to a node.
+	 *
+	 * @return the upper bound for node indices
+	 */
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	@Override
+	public int getNodeIndexBound() {
+		return getNodeCount();
+	}
+
+	/**
+	 * Returns the total number of arcs in this graph.
+	 *
+	 * @return the number of arcs
+	 */
+	public int getArcCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Gets the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return The node, or {@code null} if there is no node with this index
+	 */
+	@Override
+	public GraphNode<ND> getNode(int index) {
+		if (index < 0 || index >= nodes.length) return null;
+		return nodes[index];
+	}
+
+	/**
+	 * Finds the index of the given node in this graph.
+	 *
+	 * @param node The node to find
+	 * @return The index of the node, or {@code -1} if it isn't part of this graph
+	 */
+	@Override
+	public int indexOf(GraphNode<ND> node) {
+		if (node == null) return -1;
+		final Integer index = indexByName.get(node.name);
+		if (index == null) return -1;
+		return index;
+	}
+
+	/**
+	 * Checks whether the given node is part of this graph.
+	 *
+	 * @param node The node to check
+	 * @return {@code true} if the node is contained
+	 */
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return indexOf(node) != -1;
+	}
+
+	/**
+	 * Returns the number of arcs leaving the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the degree of the node
+	 */
+	public int getDegree(int index) {
+		return offsets[index + 1] - offsets[index];
+	}
+
+	/**
+	 * Returns the position of the first arc of the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the position of the first arc
+	 */
+	public int getArcStart(int index) {
+		return offsets[index];
+	}
+
+	/**
+	 * Returns the position after the last arc of the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the position after the last arc
+	 */
+	public int getArcEnd(int index) {
+		return offsets[index + 1];
+	}
+
+	/**
+	 * Returns the index of the node the arc at the given position points to.
+	 *
+	 * @param arc The position of the arc
+	 * @return the index of the target node
+	 */
+	public int getTarget(int arc) {
+		return targets[arc];
+	}
+
+	/**
+	 * Returns the weight of the arc at the given position.
+	 *
+	 * @param arc The position of the arc
+	 * @return the weight of the arc
+	 */
+	public double getWeight(int arc) {
+		return weights[arc];
+	}
+
+	/**
+	 * Returns the edge the arc at the given position belongs to.
+	 *
+	 * @param arc The position of the arc
+	 * @return the edge of the arc
+	 */
+	public GraphEdge<ND, ED> getEdge(int arc) {
+		return edges[arc];
+	}
+
+	/**
+	 * Gets the neighbors of a node within the graph.
+	 *
+	 * @param node The node whose neighbors to get.
+	 * @return The neighbors of the node, as {@code GraphNeighbor}-objects.
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 */
+	@Override
+	public List<GraphNeighbor<ND, ED>> getNeighbors(@NotNull GraphNode<ND> node) {
+		final int index = indexOf(node);
+		if (index == -1) throw new UnknownNodeException(node);
+		final List<GraphNeighbor<ND, ED>> neighbors = new ArrayList<>(getDegree(index));
+		for (int arc = offsets[index]; arc < offsets[index + 1]; arc++) {
+			neighbors.add(new GraphNeighbor<>(nodes[targets[arc]], weights[arc], edges[arc].data));
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Passes each neighbor of a node within the graph to the given consumer, without allocating any objects.
+	 *
+	 * @param node The node whose neighbors to go through
+	 * @param consumer The function to call for each neighbor
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 */
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		final int index = indexOf(node);
+		if (index == -1) throw new UnknownNodeException(node);
+		for (int arc = offsets[index]; arc < offsets[index + 1]; arc++) {
+			consumer.accept(nodes[targets[arc]], weights[arc], edges[arc].data);
+		}
+	}
+
+	@Override
+	public void forEachArc(int index, @NotNull ArcConsumer consumer) {
+		if (index < 0 || index >= nodes.length || nodes[index] == null) throw new UnknownNodeException(null);
+		for (int arc = offsets[index]; arc < offsets[index + 1]; arc++) {
+			consumer.accept(targets[arc], weights[arc]);
+		}
+	}
+
+	/**
+	 * Creates a compressed copy of this graph, which uses the same node indices but takes up considerably less
+	 * memory. Edges and their data are not kept, only their weights.
+	 *
+	 * @return the compressed graph
+	 *
+	 * @see CompressedGraph
+	 */
+	public CompressedGraph<ND, ED> compress() {
+		return CompressedGraph.of(this);
+	}
+
+	/**
+	 * Creates a copy of this graph in which the nodes are relabeled according to the given order. The node at index
+	 * {@code order[i]} in this graph gets the index {@code i} in the new graph. Nodes whose index doesn't appear in
+	 * the order are left out, along with their arcs.
+	 * <br>
+	 * Placing nodes that are connected close to each other means that their data is close together in memory, which
+	 * makes traversing the graph considerably more cache-friendly.
+	 *
+	 * @param order The indices of the nodes in their new order
+	 * @return the reordered graph
+	 * @throws IllegalArgumentException if an index in the order is invalid or appears more than once
+	 *
+	 * @see NodeReordering
+	 */
+	@SuppressWarnings("unchecked")
+	public CompactGraph<ND, ED> reorder(int @NotNull [] order) {
+		final int[] newIndices = new int[nodes.length];
+		Arrays.fill(newIndices, -1);
+		for (int i = 0; i < order.length; i++) {
+			if (order[i] < 0 || order[i] >= nodes.length || nodes[order[i]] == null)
+				throw new IllegalArgumentException("Invalid node index " + order[i] + " in order");
+			if (newIndices[order[i]] != -1)
+				throw new IllegalArgumentException("Node index " + order[i] + " appears twice in order");
+			newIndices[order[i]] = i;
+		}
+
+		final GraphNode<ND>[] newNodes = new GraphNode[order.length];
+		final int[] newOffsets = new int[order.length + 1];
+		for (int i = 0; i < order.length; i++) {
+			newNodes[i] = nodes[order[i]];
+			int degree = 0;
+			for (int arc = offsets[order[i]]; arc < offsets[order[i] + 1]; arc++) {
+				if (newIndices[targets[arc]] != -1) degree++;
+			}
+			newOffsets[i + 1] = newOffsets[i] + degree;
+		}
+
+		final int arcCount = newOffsets[order.length];
+		final int[] newTargets = new int[arcCount];
+		final double[] newWeights = new double[arcCount];
+		final GraphEdge<ND, ED>[] newEdges = new GraphEdge[arcCount];
+		for (int i = 0; i < order.length; i++) {
+			int newArc = newOffsets[i];
+			for (int arc = offsets[order[i]]; arc < offsets[order[i] + 1]; arc++) {
+				if (newIndices[targets[arc]] == -1) continue;
+				newTargets[newArc] = newIndices[targets[arc]];
+				newWeights[newArc] = weights[arc];
+				newEdges[newArc] = edges[arc];
+				newArc++;
+			}
+		}
+		return new CompactGraph<>(newNodes, newOffsets, newTargets, newWeights, newEdges);
+	}
+
+	/**
+	 * Returns the bandwidth of this graph, which is the largest difference between the indices of two connected
+	 * nodes.
+	 *
+	 * @return the bandwidth
+	 */
+	public int getBandwidth() {
+		int bandwidth = 0;
+		for (int index = 0; index < nodes.length; index++) {
+			for (int arc = offsets[index]; arc < offsets[index + 1]; arc++) {
+				bandwidth = Math.max(bandwidth, Math.abs(targets[arc] - index));
+			}
+		}
+		return bandwidth;
+	}
+
+	/**
+	 * Returns the average difference between the indices of two connected nodes. Unlike the bandwidth, this isn't
+	 * dominated by a few long edges, and is a better indicator of how local memory accesses during a traversal are.
+	 *
+	 * @return the average index difference over all arcs, or {@code 0} if there are no arcs
+	 */
+	public double getAverageArcSpan() {
+		if (targets.length == 0) return 0;
+		long total = 0;
+		for (int index = 0; index < nodes.length; index++) {
+			for (int arc = offsets[index]; arc < offsets[index + 1]; arc++) {
+				total += Math.abs(targets[arc] - index);
+			}
+		}
+		return (double) total / targets.length;
+	}
+
+	/**
+	 * Maps the names of the given nodes to their position in the array.
+	 *
+	 * @param nodes The nodes, which may contain {@code null}
+	 * @return an unmodifiable map from node names to indices
+	 */
+	static Map<String, Integer> indexByName(GraphNode<?>[] nodes) {
+		final Map<String, Integer> indexByName = new HashMap<>(Graph.hashCapacity(nodes.length));
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i] != null) indexByName.put(nodes[i].name, i);
+		}
+		return Collections.unmodifiableMap(indexByName);
+	}
+}
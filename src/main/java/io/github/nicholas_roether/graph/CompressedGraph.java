@@ -0,0 +1,344 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, read-only graph whose adjacency lists are stored in compressed form.
+ * <br>
+ * The arcs of each node are sorted by their target, and the targets are stored as variable-length encoded gaps
+ * between consecutive targets, so that neighbors with nearby indices only take up a single byte. If the graph
+ * doesn't contain too many distinct edge weights, the weights are replaced by variable-length encoded indices into a
+ * dictionary, in which the most common weights come first. Otherwise, they are stored as they are.
+ * <br>
+ * The arcs are decoded on the fly while iterating over them, so access to the neighbors of a node is sequential.
+ * Unlike a {@code CompactGraph}, a compressed graph doesn't store the edges themselves, only their weights, so the
+ * edge data passed to neighbor consumers is always {@code null}.
+ * <br>
+ * Compressed graphs are created using {@code CompactGraph.compress()}, and use the same node indices as the compact
+ * graph they were created from.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ *
+ * @see CompactGraph#compress()
+ */
+public class CompressedGraph<ND extends JSONSerializable, ED extends JSONSerializable> implements GraphView<ND, ED> {
+	/**
+	 * The largest number of distinct weights for which a weight dictionary is used.
+	 */
+	private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	/**
+	 * The nodes of the graph, indexed by their index. Unused indices contain {@code null}.
+	 */
+	private final GraphNode<ND>[] nodes;
+
+	/**
+	 * The position of the encoded arcs of each node within {@code data}.
+	 */
+	private final int[] positions;
+
+	/**
+	 * The encoded arcs of all nodes.
+	 */
+	private final byte[] data;
+
+	/**
+	 * The distinct weights of the graph, ordered by how often they occur, or {@code null} if the weights are stored
+	 * directly.
+	 */
+	private final double[] dictionary;
+
+	private final int arcCount;
+
+	/**
+	 * Maps the names of the nodes to their index.
+	 */
+	private final Map<String, Integer> indexByName;
+
+	private CompressedGraph(
+			GraphNode<ND>[] nodes,
+			int[] positions,
+			byte[] data,
+			double[] dictionary,
+			int arcCount
+	) {
+		this.nodes = nodes;
+		this.positions = positions;
+		this.data = data;
+		this.dictionary = dictionary;
+		this.arcCount = arcCount;
+		this.indexByName = CompactGraph.indexByName(nodes);
+	}
+
+	/**
+	 * Compresses the given compact graph.
+	 *
+	 * @param graph The graph to compress
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the compressed graph
+	 */
+	@SuppressWarnings("unchecked")
+	static <ND extends JSONSerializable, ED extends JSONSerializable> CompressedGraph<ND, ED> of(
+			@NotNull CompactGraph<ND, ED> graph
+	) {
+		final int nodeCount = graph.getNodeCount();
+		final GraphNode<ND>[] nodes = new GraphNode[nodeCount];
+		for (int i = 0; i < nodeCount; i++) nodes[i] = graph.getNode(i);
+
+		final double[] dictionary = buildDictionary(graph);
+		final Map<Double, Integer> dictionaryIndices = new HashMap<>();
+		if (dictionary != null) {
+			for (int i = 0; i < dictionary.length; i++) dictionaryIndices.put(dictionary[i], i);
+		}
+
+		final Encoder encoder = new Encoder(graph.getArcCount() * 2 + nodeCount);
+		final int[] positions = new int[nodeCount + 1];
+		for (int i = 0; i < nodeCount; i++) {
+			positions[i] = encoder.size;
+			final int start = graph.getArcStart(i);
+			final int degree = graph.getDegree(i);
+			// Sort the arcs by their target so that the gaps between them are small and non-negative.
+			final long[] order = new long[degree];
+			for (int j = 0; j < degree; j++) order[j] = ((long) graph.getTarget(start + j) << 32) | j;
+			Arrays.sort(order);
+
+			encoder.writeVarInt(degree);
+			int previous = 0;
+			for (int j = 0; j < degree; j++) {
+				final int arc = start + (int) order[j];
+				final int target = graph.getTarget(arc);
+				// The first target is stored relative to the node itself, since neighbors tend to have similar
+				// indices, and may be lower.
+				if (j == 0) encoder.writeVarInt(zigZag(target - i));
+				else encoder.writeVarInt(target - previous);
+				previous = target;
+
+				if (dictionary != null) encoder.writeVarInt(dictionaryIndices.get(graph.getWeight(arc)));
+				else encoder.writeDouble(graph.getWeight(arc));
+			}
+		}
+		positions[nodeCount] = encoder.size;
+		return new CompressedGraph<>(nodes, positions, encoder.toArray(), dictionary, graph.getArcCount());
+	}
+
+	/**
+	 * Returns an upper bound for the node indices in this graph. All indices are between {@code 0} (inclusive)
+	 * and this bound (exclusive), but not every index in between necessarily belongs to a node.
+	 *
+	 * @return the upper bound for node indices
+	 */
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	@Override
+	public int getNodeIndexBound() {
+		return getNodeCount();
+	}
+
+	/**
+	 * Returns the total number of arcs in this graph.
+	 *
+	 * @return the number of arcs
+	 */
+	public int getArcCount() {
+		return arcCount;
+	}
+
+	/**
+	 * Gets the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return The node, or {@code null} if there is no node with this index
+	 */
+	@Override
+	public GraphNode<ND> getNode(int index) {
+		if (index < 0 || index >= nodes.length) return null;
+		return nodes[index];
+	}
+
+	/**
+	 * Finds the index of the given node in this graph.
+	 *
+	 * @param node The node to find
+	 * @return The index of the node, or {@code -1} if it isn't part of this graph
+	 */
+	@Override
+	public int indexOf(GraphNode<ND> node) {
+		if (node == null) return -1;
+		final Integer index = indexByName.get(node.name);
+		if (index == null) return -1;
+		return index;
+	}
+
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return indexOf(node) != -1;
+	}
+
+	/**
+	 * Passes each neighbor of a node within the graph to the given consumer, decoding its arcs on the fly.
+	 *
+	 * @param node The node whose neighbors to go through
+	 * @param consumer The function to call for each neighbor
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 */
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		final int index = indexOf(node);
+		if (index == -1) throw new UnknownNodeException(node);
+		forEachArc(index, (target, weight) -> consumer.accept(nodes[target], weight, null));
+	}
+
+	/**
+	 * Returns the number of arcs leaving the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the degree of the node
+	 */
+	public int getDegree(int index) {
+		return readVarInt(positions[index]);
+	}
+
+	/**
+	 * Decodes the arcs leaving the node with the given index and passes them to the given consumer, in ascending
+	 * order of their target.
+	 *
+	 * @param index The index of the node
+	 * @param consumer The function to call for each arc
+	 * @throws UnknownNodeException if there is no node with the given index
+	 */
+	@Override
+	public void forEachArc(int index, @NotNull ArcConsumer consumer) {
+		if (getNode(index) == null) throw new UnknownNodeException(null);
+		final byte[] data = this.data;
+		int position = positions[index];
+		int degree = 0;
+		for (int shift = 0; ; shift += 7) {
+			final byte b = data[position++];
+			degree |= (b & 0x7f) << shift;
+			if (b >= 0) break;
+		}
+		int target = 0;
+		for (int j = 0; j < degree; j++) {
+			int delta = 0;
+			for (int shift = 0; ; shift += 7) {
+				final byte b = data[position++];
+				delta |= (b & 0x7f) << shift;
+				if (b >= 0) break;
+			}
+			target = j == 0 ? index + unZigZag(delta) : target + delta;
+
+			final double weight;
+			if (dictionary != null) {
+				int weightIndex = 0;
+				for (int shift = 0; ; shift += 7) {
+					final byte b = data[position++];
+					weightIndex |= (b & 0x7f) << shift;
+					if (b >= 0) break;
+				}
+				weight = dictionary[weightIndex];
+			} else {
+				weight = Double.longBitsToDouble(readLong(position));
+				position += 8;
+			}
+			consumer.accept(target, weight);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes used to store the arcs of this graph, including the weight dictionary and the
+	 * positions of the nodes' arcs, but not the nodes themselves.
+	 *
+	 * @return the size of the encoded arcs in bytes
+	 */
+	public long getEncodedSize() {
+		return data.length + 4L * positions.length + (dictionary == null ? 0 : 8L * dictionary.length);
+	}
+
+	/**
+	 * Collects the distinct weights of the given graph, ordered by descending frequency.
+	 *
+	 * @return the weight dictionary, or {@code null} if there are too many distinct weights
+	 */
+	private static double[] buildDictionary(CompactGraph<?, ?> graph) {
+		final Map<Double, Integer> counts = new HashMap<>();
+		for (int arc = 0; arc < graph.getArcCount(); arc++) {
+			counts.merge(graph.getWeight(arc), 1, Integer::sum);
+			if (counts.size() > MAX_DICTIONARY_SIZE) return null;
+		}
+		return counts.entrySet()
+				.stream()
+				.sorted(Map.Entry.<Double, Integer>comparingByValue().reversed())
+				.mapToDouble(Map.Entry::getKey)
+				.toArray();
+	}
+
+	private int readVarInt(int position) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = data[position++];
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+
+	private long readLong(int position) {
+		long value = 0;
+		for (int i = 0; i < 8; i++) value |= (data[position + i] & 0xffL) << (8 * i);
+		return value;
+	}
+
+	private static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * A growable byte buffer that the encoded arcs are written to.
+	 */
+	private static class Encoder {
+		private byte[] bytes;
+		private int size = 0;
+
+		Encoder(int initialCapacity) {
+			bytes = new byte[Math.max(initialCapacity, 16)];
+		}
+
+		void writeVarInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7f) != 0) {
+				bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void writeDouble(double value) {
+			ensureCapacity(8);
+			final long bits = Double.doubleToLongBits(value);
+			for (int i = 0; i < 8; i++) bytes[size++] = (byte) (bits >>> (8 * i));
+		}
+
+		byte[] toArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+
+		private void ensureCapacity(int additional) {
+			if (size + additional > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+		}
+	}
+}
@@ -0,0 +1,520 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+import processing.data.JSONObject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A graph that can safely be read by many threads while another thread modifies it.
+ * <br>
+ * Reading methods never block: they work on a separate index in which the edges of each node and their weights are
+ * stored in immutable arrays that are replaced, rather than modified, whenever an edge is added or removed or its
+ * weight changes. Each read
+ * therefore sees the state of a node's neighborhood either before or after any concurrent change, but never
+ * anything in between, and never throws a {@code ConcurrentModificationException}. Changes to the graph are
+ * serialized, so only one thread modifies it at a time; the cost of adding or removing an edge grows with the
+ * degree of its nodes.
+ * <br>
+ * Reads that span the whole graph, such as {@code getEdges()}, are not atomic with respect to concurrent changes.
+ * Use {@code snapshot()} or {@code freeze()} to get a consistent view of the entire graph.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ */
+public class ConcurrentGraph<ND extends JSONSerializable, ED extends JSONSerializable> extends Graph<ND, ED> {
+	/**
+	 * Serializes all changes to the graph.
+	 */
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * How many writing methods the thread holding the write lock is currently executing. Guarded by
+	 * {@code writeLock}.
+	 */
+	private int writeDepth = 0;
+
+	/**
+	 * Listener notifications that are delivered once the outermost writing method has updated the readable
+	 * state. Guarded by {@code writeLock}.
+	 */
+	private final List<Consumer<GraphListener<ND, ED>>> pendingNotifications = new ArrayList<>();
+
+	/**
+	 * The readable state of each node, indexed by node id. Slots of unused ids contain {@code null}. Replaced by
+	 * a larger array when the graph grows.
+	 */
+	private volatile AtomicReferenceArray<NodeEntry<ND, ED>> entries = new AtomicReferenceArray<>(16);
+
+	/**
+	 * The upper bound for node ids, as visible to readers.
+	 */
+	private volatile int nodeIdBound = 0;
+
+	/**
+	 * The version of the graph, as visible to readers.
+	 */
+	private volatile long version = 0;
+
+	/**
+	 * The modification count of the graph, as visible to readers.
+	 */
+	private volatile long modificationCount = 0;
+
+	/**
+	 * Maps the names of all nodes in the graph to their entries.
+	 */
+	private final Map<String, NodeEntry<ND, ED>> entriesByName = new ConcurrentHashMap<>();
+
+	/**
+	 * All nodes in the graph.
+	 */
+	private final Set<GraphNode<ND>> nodeSet = ConcurrentHashMap.newKeySet();
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Writing
+
+	@Override
+	public boolean addNode(@NotNull GraphNode<ND> node) {
+		beginWrite();
+		try {
+			if (!super.addNode(node)) return false;
+			final NodeEntry<ND, ED> entry = new NodeEntry<>(node, node.id, emptyEdges(), new double[0]);
+			publishEntry(entry);
+			entriesByName.put(node.name, entry);
+			nodeSet.add(node);
+			return true;
+		} finally {
+			endWrite();
+		}
+	}
+
+	@Override
+	public boolean removeNode(@NotNull GraphNode<ND> node) {
+		beginWrite();
+		try {
+			final NodeEntry<ND, ED> entry = entriesByName.get(node.name);
+			if (entry == null || !super.removeNode(entry.node)) return false;
+			// The graph removed the associated edges internally, so remove them from the neighbors' entries here
+			for (GraphEdge<ND, ED> edge : entry.edges) {
+				if (!edge.isLoop()) removeFromEntry(edge.nodeId0 == entry.id ? edge.nodeId1 : edge.nodeId0, edge);
+			}
+			entries.set(entry.id, null);
+			entriesByName.remove(entry.node.name);
+			nodeSet.remove(entry.node);
+			return true;
+		} finally {
+			endWrite();
+		}
+	}
+
+	@Override
+	public boolean addEdge(GraphEdge<ND, ED> edge) {
+		beginWrite();
+		try {
+			super.addEdge(edge);
+			addToEntry(edge.nodeId0, edge);
+			if (!edge.isLoop()) addToEntry(edge.nodeId1, edge);
+			return true;
+		} finally {
+			endWrite();
+		}
+	}
+
+	@Override
+	public boolean removeEdge(@NotNull GraphEdge<ND, ED> edge) {
+		beginWrite();
+		try {
+			final GraphEdge<ND, ED> contained = findEdge(edge);
+			if (contained == null || !super.removeEdge(contained)) return false;
+			removeFromEntry(contained.nodeId0, contained);
+			if (!contained.isLoop()) removeFromEntry(contained.nodeId1, contained);
+			return true;
+		} finally {
+			endWrite();
+		}
+	}
+
+	@Override
+	public boolean setWeight(@NotNull GraphEdge<ND, ED> edge, double weight) {
+		beginWrite();
+		try {
+			final GraphEdge<ND, ED> contained = findEdge(edge);
+			if (contained == null || !super.setWeight(contained, weight)) return false;
+			replaceWeightInEntry(contained.nodeId0, contained, weight);
+			if (!contained.isLoop()) replaceWeightInEntry(contained.nodeId1, contained, weight);
+			return true;
+		} finally {
+			endWrite();
+		}
+	}
+
+	@Override
+	public void batch(@NotNull Consumer<GraphMutator<ND, ED>> mutations) {
+		beginWrite();
+		try {
+			super.batch(mutations);
+		} finally {
+			endWrite();
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Reading
+
+	@Override
+	public GraphNode<ND> getNode(@NotNull String name) {
+		final NodeEntry<ND, ED> entry = entriesByName.get(name);
+		if (entry == null) return null;
+		return entry.node;
+	}
+
+	@Override
+	public GraphNode<ND> getNode(int id) {
+		final AtomicReferenceArray<NodeEntry<ND, ED>> entries = this.entries;
+		if (id < 0 || id >= entries.length()) return null;
+		final NodeEntry<ND, ED> entry = entries.get(id);
+		if (entry == null) return null;
+		return entry.node;
+	}
+
+	@Override
+	public int indexOf(GraphNode<ND> node) {
+		if (node == null) return GraphNode.NO_ID;
+		final NodeEntry<ND, ED> entry = entriesByName.get(node.name);
+		if (entry == null) return GraphNode.NO_ID;
+		return entry.id;
+	}
+
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return node != null && entriesByName.containsKey(node.name);
+	}
+
+	@Override
+	public int getNodeIdBound() {
+		return nodeIdBound;
+	}
+
+	@Override
+	public Set<GraphNode<ND>> getNodes() {
+		return Collections.unmodifiableSet(nodeSet);
+	}
+
+	/**
+	 * Returns all edges in the graph.
+	 * <br>
+	 * Unlike the edge list of a regular graph, the returned list is a copy and isn't updated when the graph
+	 * changes.
+	 *
+	 * @return an immutable list of all edges in the graph.
+	 */
+	@Override
+	public List<GraphEdge<ND, ED>> getEdges() {
+		final AtomicReferenceArray<NodeEntry<ND, ED>> entries = this.entries;
+		final List<GraphEdge<ND, ED>> edges = new ArrayList<>();
+		for (int id = 0; id < entries.length(); id++) {
+			final NodeEntry<ND, ED> entry = entries.get(id);
+			if (entry == null) continue;
+			// Every edge is listed by the first of the nodes it connects.
+			for (GraphEdge<ND, ED> edge : entry.edges) {
+				if (edge.nodeId0 == id) edges.add(edge);
+			}
+		}
+		return Collections.unmodifiableList(edges);
+	}
+
+	@Override
+	public List<GraphNeighbor<ND, ED>> getNeighbors(@NotNull GraphNode<ND> node) {
+		final NodeEntry<ND, ED> entry = assertKnownEntry(node);
+		final List<GraphNeighbor<ND, ED>> neighbors = new ArrayList<>(entry.edges.length);
+		for (int i = 0; i < entry.edges.length; i++) {
+			final GraphEdge<ND, ED> edge = entry.edges[i];
+			neighbors.add(new GraphNeighbor<>(edge.getOtherNode(entry.id), entry.weights[i], edge.data));
+		}
+		return neighbors;
+	}
+
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		final NodeEntry<ND, ED> entry = assertKnownEntry(node);
+		for (int i = 0; i < entry.edges.length; i++) {
+			final GraphEdge<ND, ED> edge = entry.edges[i];
+			consumer.accept(edge.getOtherNode(entry.id), entry.weights[i], edge.data);
+		}
+	}
+
+	@Override
+	public boolean areConnected(GraphNode<ND> node1, GraphNode<ND> node2) {
+		return getEdge(node1, node2) != null;
+	}
+
+	/**
+	 * Gets the edge that connects the two given nodes. If there are several, the one with the lowest weight is
+	 * returned.
+	 * <br>
+	 * Unlike with a regular graph, this searches the edges of the node with fewer edges, instead of using an index.
+	 *
+	 * @param node1 The first of the nodes
+	 * @param node2 The second of the nodes
+	 * @return the edge, or {@code null} if the nodes aren't connected
+	 * @throws UnknownNodeException if {@code node1} isn't contained in the graph
+	 */
+	@Override
+	public GraphEdge<ND, ED> getEdge(GraphNode<ND> node1, GraphNode<ND> node2) {
+		final NodeEntry<ND, ED> entry1 = assertKnownEntry(node1);
+		final NodeEntry<ND, ED> entry2 = node2 == null ? null : entriesByName.get(node2.name);
+		if (entry2 == null) return null;
+		final NodeEntry<ND, ED> entry = entry1.edges.length <= entry2.edges.length ? entry1 : entry2;
+		final GraphNode<ND> other = entry == entry1 ? entry2.node : entry1.node;
+		GraphEdge<ND, ED> lightest = null;
+		double lightestWeight = 0;
+		for (int i = 0; i < entry.edges.length; i++) {
+			if (!entry.edges[i].getOtherNode(entry.id).equals(other)) continue;
+			if (lightest == null || entry.weights[i] < lightestWeight) {
+				lightest = entry.edges[i];
+				lightestWeight = entry.weights[i];
+			}
+		}
+		return lightest;
+	}
+
+	@Override
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/*
+	 * The following methods read the whole underlying graph at once, so they block concurrent changes while
+	 * they run.
+	 */
+
+	@Override
+	public CompactGraph<ND, ED> freeze() {
+		writeLock.lock();
+		try {
+			return super.freeze();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public GraphSnapshot<ND, ED> snapshot() {
+		writeLock.lock();
+		try {
+			return super.snapshot();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public JSONObject toJSON() {
+		writeLock.lock();
+		try {
+			return super.toJSON();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		writeLock.lock();
+		try {
+			return super.equals(o);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		writeLock.lock();
+		try {
+			return super.hashCode();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Defers the notification until the change is visible to readers, so that listeners reading the graph back
+	 * see the changed state, and a listener that throws can't leave the readable state out of sync.
+	 *
+	 * @param notification The notification to deliver to each listener
+	 */
+	@Override
+	protected void notifyListeners(Consumer<GraphListener<ND, ED>> notification) {
+		pendingNotifications.add(notification);
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	// Index maintenance
+
+	/**
+	 * Acquires the write lock for a writing method.
+	 */
+	private void beginWrite() {
+		writeLock.lock();
+		writeDepth++;
+	}
+
+	/**
+	 * Publishes the version of the graph and releases the write lock acquired by {@code beginWrite()}. When the
+	 * outermost writing method finishes, all deferred listener notifications are delivered before the lock is
+	 * released.
+	 */
+	private void endWrite() {
+		try {
+			publishVersion();
+			if (--writeDepth > 0 || pendingNotifications.isEmpty()) return;
+			// Listeners may change the graph again, which defers their own notifications until they are done
+			final List<Consumer<GraphListener<ND, ED>>> notifications = new ArrayList<>(pendingNotifications);
+			pendingNotifications.clear();
+			for (Consumer<GraphListener<ND, ED>> notification : notifications) super.notifyListeners(notification);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Makes the current version and modification count of the underlying graph visible to readers.
+	 */
+	private void publishVersion() {
+		version = super.getVersion();
+		modificationCount = super.getModificationCount();
+	}
+
+	/**
+	 * Stores the given entry at the id of its node, growing the entry array if necessary.
+	 *
+	 * @param entry The entry to store
+	 */
+	private void publishEntry(NodeEntry<ND, ED> entry) {
+		AtomicReferenceArray<NodeEntry<ND, ED>> entries = this.entries;
+		if (entry.id >= entries.length()) {
+			final AtomicReferenceArray<NodeEntry<ND, ED>> grown = new AtomicReferenceArray<>(
+					Math.max(entries.length() * 2, entry.id + 1)
+			);
+			for (int id = 0; id < entries.length(); id++) grown.set(id, entries.get(id));
+			this.entries = entries = grown;
+		}
+		entries.set(entry.id, entry);
+		entriesByName.replace(entry.node.name, entry);
+		nodeIdBound = super.getNodeIdBound();
+	}
+
+	/**
+	 * Replaces the entry of the node with the given id by one that also contains the given edge.
+	 *
+	 * @param id The id of the node
+	 * @param edge The edge to add
+	 */
+	private void addToEntry(int id, GraphEdge<ND, ED> edge) {
+		final NodeEntry<ND, ED> entry = entries.get(id);
+		final GraphEdge<ND, ED>[] edges = Arrays.copyOf(entry.edges, entry.edges.length + 1);
+		final double[] weights = Arrays.copyOf(entry.weights, entry.weights.length + 1);
+		edges[entry.edges.length] = edge;
+		weights[entry.weights.length] = edge.getWeight();
+		publishEntry(new NodeEntry<>(entry.node, id, edges, weights));
+	}
+
+	/**
+	 * Replaces the entry of the node with the given id by one that doesn't contain the given edge.
+	 *
+	 * @param id The id of the node
+	 * @param edge The edge to remove
+	 */
+	private void removeFromEntry(int id, GraphEdge<ND, ED> edge) {
+		final NodeEntry<ND, ED> entry = entries.get(id);
+		final GraphEdge<ND, ED>[] edges = Arrays.copyOf(entry.edges, entry.edges.length - 1);
+		final double[] weights = new double[edges.length];
+		int position = 0;
+		for (int i = 0; i < entry.edges.length; i++) {
+			if (entry.edges[i] == edge) continue;
+			edges[position] = entry.edges[i];
+			weights[position++] = entry.weights[i];
+		}
+		publishEntry(new NodeEntry<>(entry.node, id, edges, weights));
+	}
+
+	/**
+	 * Replaces the entry of the node with the given id by one in which the given edge has the given weight.
+	 *
+	 * @param id The id of the node
+	 * @param edge The edge whose weight changed
+	 * @param weight The new weight
+	 */
+	private void replaceWeightInEntry(int id, GraphEdge<ND, ED> edge, double weight) {
+		final NodeEntry<ND, ED> entry = entries.get(id);
+		final double[] weights = entry.weights.clone();
+		for (int i = 0; i < entry.edges.length; i++) {
+			if (entry.edges[i] == edge) weights[i] = weight;
+		}
+		publishEntry(new NodeEntry<>(entry.node, id, entry.edges, weights));
+	}
+
+	/**
+	 * Finds the edge in this graph that is equal to the given edge.
+	 *
+	 * @param edge The edge to find
+	 * @return the contained edge, or {@code null} if the graph doesn't contain the edge
+	 */
+	private GraphEdge<ND, ED> findEdge(GraphEdge<ND, ED> edge) {
+		final NodeEntry<ND, ED> entry = entriesByName.get(edge.nodes.getValue0().name);
+		if (entry == null) return null;
+		for (GraphEdge<ND, ED> other : entry.edges) {
+			if (other == edge) return other;
+		}
+		for (GraphEdge<ND, ED> other : entry.edges) {
+			if (other.equals(edge)) return other;
+		}
+		return null;
+	}
+
+	private NodeEntry<ND, ED> assertKnownEntry(GraphNode<ND> node) {
+		final NodeEntry<ND, ED> entry = node == null ? null : entriesByName.get(node.name);
+		if (entry == null) {
+			throw new UnknownNodeException(node);
+		}
+		return entry;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <ND extends JSONSerializable, ED extends JSONSerializable> GraphEdge<ND, ED>[] emptyEdges() {
+		return new GraphEdge[0];
+	}
+
+	/**
+	 * The readable state of a single node. Entries are never modified, only replaced.
+	 */
+	private static class NodeEntry<ND extends JSONSerializable, ED extends JSONSerializable> {
+		final GraphNode<ND> node;
+		final int id;
+		final GraphEdge<ND, ED>[] edges;
+
+		/**
+		 * The weight of each edge, at the same position as the edge.
+		 */
+		final double[] weights;
+
+		NodeEntry(GraphNode<ND> node, int id, GraphEdge<ND, ED>[] edges, double[] weights) {
+			this.node = node;
+			this.id = id;
+			this.edges = edges;
+			this.weights = weights;
+		}
+	}
+}
@@ -6,6 +6,9 @@ import processing.data.JSONArray;
 import processing.data.JSONObject;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * A graph. Graphs consist of nodes, and edges that connect those nodes. Each edge has a weight
@@ -15,6 +18,15 @@ import java.util.*;
  * type parameters.
  * <br>
  * Graphs are considered equal if all their nodes and edges are equal.
+ * <br>
+ * Every node is assigned an id when it is added, which is never reused for another node, even after the node is
+ * removed. Arrays indexed by id therefore never mix up two nodes. Since the id is stored in the node itself, a node
+ * object can only be contained in one graph at a time; to add an equal node to another graph, create a new
+ * {@code GraphNode} with the same name and data.
+ * <br>
+ * Every structural change to a graph increments its version, and every change, including changes of edge weights,
+ * increments its modification count. Structural changes and changes of edge weights are reported to all registered
+ * {@code GraphListener}s. Many changes can be applied at once using {@code batch()}.
  *
  * @param <ND> The node data type
  * @param <ED> The edge data type
@@ -22,9 +34,82 @@ import java.util.*;
  * @see GraphNode
  * @see GraphEdge
  */
-public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> implements JSONSerializable {
+public class Graph<ND extends JSONSerializable, ED extends JSONSerializable>
+		implements GraphView<ND, ED>, JSONSerializable {
 	private final Set<GraphNode<ND>> nodes;
-	private final List<GraphEdge<ND, ED>> edges;
+	private final ArrayList<GraphEdge<ND, ED>> edges;
+
+	/**
+	 * Maps the names of all nodes in the graph to the nodes themselves.
+	 */
+	private Map<String, GraphNode<ND>> nodesByName;
+
+	/**
+	 * All nodes in the graph, indexed by their id. Slots of ids that are currently unused contain {@code null}.
+	 */
+	private final ArrayList<GraphNode<ND>> nodesById;
+
+	/**
+	 * The edges that connect to each node, indexed by the id of the node, so that the neighbors of a node can be
+	 * found without going through every edge in the graph.
+	 */
+	private final ArrayList<List<GraphEdge<ND, ED>>> adjacency;
+
+	/**
+	 * Maps each pair of connected nodes to the edge with the lowest weight between them, along with the number of
+	 * edges between them. The pairs are unordered and identified by the ids of their nodes.
+	 *
+	 * @see #pairKey(int, int)
+	 */
+	private Map<Long, EdgePair<ND, ED>> edgesByPair;
+
+	/**
+	 * The listeners that are notified of changes to the graph.
+	 */
+	private final List<GraphListener<ND, ED>> listeners;
+
+	/**
+	 * The number of structural changes that were made to the graph since it was created.
+	 */
+	private long version = 0;
+
+	/**
+	 * The number of changes of any kind, including changes of edge weights, that were made to the graph since it was
+	 * created.
+	 */
+	private long modificationCount = 0;
+
+	/**
+	 * The changes made by the batch that is currently being applied, or {@code null} if no batch is being applied.
+	 */
+	private List<GraphChangeEvent<ND, ED>> batchEvents = null;
+
+	/**
+	 * The version of the graph once the batch that is currently being applied is done.
+	 */
+	private long batchVersion;
+
+	/**
+	 * The state of each node as it is shared with snapshots, indexed by node id. This is only maintained once the
+	 * first snapshot has been taken, and {@code null} before that.
+	 */
+	private PersistentVector<GraphSnapshot.Entry<ND, ED>> snapshotEntries = null;
+
+	/**
+	 * Maps the names of all nodes to their id, shared with snapshots like {@code snapshotEntries}. {@code null} before
+	 * the first snapshot has been taken.
+	 */
+	private PersistentMap<String, Integer> snapshotIdsByName = null;
+
+	/**
+	 * The most recently taken snapshot, which is reused as long as the graph doesn't change.
+	 */
+	private GraphSnapshot<ND, ED> latestSnapshot = null;
+
+	/**
+	 * The modification count of the graph at the time {@code latestSnapshot} was taken.
+	 */
+	private long latestSnapshotModificationCount;
 
 	/**
 	 * Constructs an empty graph.
@@ -32,6 +117,11 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	public Graph() {
 		this.nodes = new HashSet<>();
 		this.edges = new ArrayList<>();
+		this.nodesByName = new HashMap<>();
+		this.nodesById = new ArrayList<>();
+		this.adjacency = new ArrayList<>();
+		this.edgesByPair = new HashMap<>();
+		this.listeners = new CopyOnWriteArrayList<>();
 	}
 
 	/**
@@ -69,18 +159,37 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	}
 
 	/**
-	 * Adds the given node to the graph, if that node isn't already contained.
+	 * Adds the given node to the graph, if that node isn't already contained, and assigns it a new id.
+	 * <br>
+	 * A node object can only be contained in one graph at a time. It can be added to another graph once it has been
+	 * removed from the first one.
 	 * <br>
 	 * Note that nodes are considered equal if they have the same name, so each node in the graph
 	 * needs a unique name.
 	 *
 	 * @param node The node to add
 	 * @return true if the node was actually added to the graph
+	 * @throws IllegalArgumentException if the node is already contained in a different graph
 	 *
 	 * @see GraphNode
 	 */
 	public boolean addNode(@NotNull GraphNode<ND> node) {
-		return nodes.add(node);
+		if (nodesByName.containsKey(node.name)) return false;
+		if (node.id != GraphNode.NO_ID)
+			throw new IllegalArgumentException("This node is already contained in another graph: " + node);
+
+		// Ids are never reused, so that information stored by id can't be mistaken for that of a later node.
+		node.id = nodesById.size();
+		nodesById.add(node);
+		adjacency.add(new ArrayList<>());
+		nodesByName.put(node.name, node);
+		nodes.add(node);
+		if (snapshotEntries != null) {
+			snapshotEntries = snapshotEntries.set(node.id, new GraphSnapshot.Entry<>(node));
+			snapshotIdsByName = snapshotIdsByName.put(node.name, node.id);
+		}
+		fireChange(GraphChangeEvent.Type.NODE_ADDED, node, null);
+		return true;
 	}
 
 	/**
@@ -111,10 +220,60 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	 * @see GraphNode
 	 */
 	public GraphNode<ND> getNode(@NotNull String name) {
-		for (GraphNode<ND> node : nodes) {
-			if (node.name.equals(name)) return node;
-		}
-		return null;
+		return nodesByName.get(name);
+	}
+
+	/**
+	 * Gets a node out of the graph by its id.
+	 *
+	 * @param id The id of the node
+	 * @return The node, or {@code null} if no node in the graph has this id
+	 *
+	 * @see GraphNode#getId()
+	 */
+	@Override
+	public GraphNode<ND> getNode(int id) {
+		if (id < 0 || id >= nodesById.size()) return null;
+		return nodesById.get(id);
+	}
+
+	/**
+	 * Returns an upper bound for the ids of the nodes in this graph. All node ids are between {@code 0}
+	 * (inclusive) and this bound (exclusive), which means that arrays of this length can be indexed by node id.
+	 * <br>
+	 * Since ids aren't reused, the bound is the number of nodes that were ever added to this graph. Slots of
+	 * removed nodes stay unused.
+	 *
+	 * @return the upper bound for node ids
+	 *
+	 * @see GraphNode#getId()
+	 */
+	public int getNodeIdBound() {
+		return nodesById.size();
+	}
+
+	/**
+	 * The index of a node in a graph is its id.
+	 *
+	 * @return the upper bound for node ids
+	 *
+	 * @see Graph#getNodeIdBound()
+	 */
+	@Override
+	public int getNodeIndexBound() {
+		return getNodeIdBound();
+	}
+
+	/**
+	 * Finds the id of the given node in this graph. Unlike {@code node.getId()}, this also works for a node that
+	 * isn't contained in this graph itself, but is equal to one that is.
+	 *
+	 * @param node The node to find
+	 * @return The id of the node, or {@code -1} if it isn't part of this graph
+	 */
+	@Override
+	public int indexOf(GraphNode<ND> node) {
+		return findId(node);
 	}
 
 	/**
@@ -126,6 +285,17 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 		return Collections.unmodifiableSet(nodes);
 	}
 
+	/**
+	 * Checks whether the given node is part of this graph.
+	 *
+	 * @param node The node to check
+	 * @return {@code true} if the node is contained
+	 */
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return findId(node) != GraphNode.NO_ID;
+	}
+
 	/**
 	 * Removes the given node and all associated edges from the graph if the graph contains it.
 	 *
@@ -135,13 +305,26 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	 * @see GraphNode
 	 */
 	public boolean removeNode(@NotNull GraphNode<ND> node) {
-		List<GraphEdge<ND, ED>> associatedEdges = new ArrayList<>();
-		for (GraphEdge<ND, ED> edge : edges) {
-			if (edge.nodes.contains(node))
-				associatedEdges.add(edge);
+		final int id = findId(node);
+		if (id == GraphNode.NO_ID) return false;
+		final GraphNode<ND> removed = nodesById.get(id);
+		if (snapshotEntries != null) {
+			// Drop the node's own snapshot entry as a whole, so that removing its edges only updates the entries of
+			// its neighbors.
+			snapshotEntries = snapshotEntries.set(id, null);
+			snapshotIdsByName = snapshotIdsByName.remove(removed.name);
 		}
-		associatedEdges.forEach(this::removeEdge);
-		return nodes.remove(node);
+		// Remove the associated edges starting from the back of the adjacency list, which keeps every removal O(1).
+		final List<GraphEdge<ND, ED>> associatedEdges = adjacency.get(id);
+		while (!associatedEdges.isEmpty()) removeEdgeAt(associatedEdges.get(associatedEdges.size() - 1));
+
+		nodesById.set(id, null);
+		adjacency.set(id, null);
+		nodesByName.remove(removed.name);
+		nodes.remove(removed);
+		removed.id = GraphNode.NO_ID;
+		fireChange(GraphChangeEvent.Type.NODE_REMOVED, removed, null);
+		return true;
 	}
 
 	/**
@@ -203,13 +386,41 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	 * @param edge The edge to add
 	 * @return {@code true}
 	 * @throws UnknownNodeException if the edge attempts to connect to a node that isn't contained in the graph
+	 * @throws IllegalArgumentException if the edge is already contained in a graph
 	 *
 	 * @see GraphEdge
 	 */
 	public boolean addEdge(GraphEdge<ND, ED> edge) {
-		assertKnownNode(edge.nodes.getValue0());
-		assertKnownNode(edge.nodes.getValue1());
-		return this.edges.add(edge);
+		if (edge.index != GraphEdge.NO_INDEX)
+			throw new IllegalArgumentException("This edge is already contained in a graph: " + edge);
+		edge.nodeId0 = assertKnownNode(edge.nodes.getValue0());
+		edge.nodeId1 = assertKnownNode(edge.nodes.getValue1());
+
+		final List<GraphEdge<ND, ED>> associatedEdges0 = adjacency.get(edge.nodeId0);
+		edge.adjacencyIndex0 = associatedEdges0.size();
+		associatedEdges0.add(edge);
+		// Self-loops only appear once in the adjacency list of their node
+		if (!edge.isLoop()) {
+			final List<GraphEdge<ND, ED>> associatedEdges1 = adjacency.get(edge.nodeId1);
+			edge.adjacencyIndex1 = associatedEdges1.size();
+			associatedEdges1.add(edge);
+		}
+		edge.index = edges.size();
+		this.edges.add(edge);
+		final long pairKey = pairKey(edge.nodeId0, edge.nodeId1);
+		EdgePair<ND, ED> pair = edgesByPair.get(pairKey);
+		if (pair == null) {
+			pair = new EdgePair<>();
+			edgesByPair.put(pairKey, pair);
+		}
+		pair.lightest = pair.count == 0 ? edge : lighterEdge(pair.lightest, edge);
+		pair.count++;
+		if (snapshotEntries != null) {
+			updateSnapshotEntry(edge.nodeId0, entry -> entry.withEdge(edge));
+			if (!edge.isLoop()) updateSnapshotEntry(edge.nodeId1, entry -> entry.withEdge(edge));
+		}
+		fireChange(GraphChangeEvent.Type.EDGE_ADDED, null, edge);
+		return true;
 	}
 
 	/**
@@ -238,7 +449,55 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	 * @see GraphEdge
 	 */
 	public boolean removeEdge(@NotNull GraphEdge<ND, ED> edge) {
-		return edges.remove(edge);
+		final GraphEdge<ND, ED> contained = findEdge(edge);
+		if (contained == null) return false;
+		removeEdgeAt(contained);
+		return true;
+	}
+
+	/**
+	 * Changes the weight of the given edge in place.
+	 * <br>
+	 * Unlike removing the edge and adding a new one, this isn't a structural change, so the version of the graph
+	 * stays the same, but its modification count is incremented. Listeners are notified with an
+	 * {@code EDGE_WEIGHT_CHANGED} event. Snapshots and compact graphs taken before keep the old weight.
+	 * <br>
+	 * This takes constant time, unless there are other edges between the same nodes, and the edge was the lightest of
+	 * them and became heavier; then the other edges are searched for the new lightest one. Once a snapshot has been
+	 * taken, the old weight also has to be kept for snapshots, which copies the weights of both nodes' edges and takes
+	 * time proportional to their degree.
+	 *
+	 * @param edge The edge whose weight to change
+	 * @param weight The new weight
+	 * @return {@code true} if the edge was actually a part of the graph
+	 *
+	 * @see GraphEdge
+	 */
+	public boolean setWeight(@NotNull GraphEdge<ND, ED> edge, double weight) {
+		final GraphEdge<ND, ED> contained = findEdge(edge);
+		if (contained == null) return false;
+		final double oldWeight = contained.getWeight();
+		if (Double.compare(oldWeight, weight) == 0) return true;
+		contained.setWeight(weight);
+
+		final EdgePair<ND, ED> pair = edgesByPair.get(pairKey(contained.nodeId0, contained.nodeId1));
+		// With a single edge between the nodes, it stays the lightest one no matter its weight
+		if (pair.count > 1) {
+			if (pair.lightest != contained) {
+				if (weight < pair.lightest.getWeight()) pair.lightest = contained;
+			} else if (weight > oldWeight) {
+				// The edge may have become heavier than another edge between the same nodes
+				pair.lightest = findLightestEdge(contained.nodeId0, contained.nodeId1);
+			}
+		}
+		if (snapshotEntries != null) {
+			// Snapshots store the weights of their version, so replace the entries instead of changing them
+			updateSnapshotEntry(contained.nodeId0, entry -> entry.withWeight(contained, weight));
+			if (!contained.isLoop())
+				updateSnapshotEntry(contained.nodeId1, entry -> entry.withWeight(contained, weight));
+		}
+		fireChange(GraphChangeEvent.Type.EDGE_WEIGHT_CHANGED, null, contained);
+		return true;
 	}
 
 	/**
@@ -259,22 +518,38 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	 *
 	 * @see GraphNode
 	 */
+	@Override
 	public List<GraphNeighbor<ND, ED>> getNeighbors(@NotNull GraphNode<ND> node) {
-		assertKnownNode(node);
-		final List<GraphNeighbor<ND, ED>> neighbors = new ArrayList<>();
-		for (GraphEdge<ND, ED> edge : edges) {
-			GraphNode<ND> neighbor = null;
-			if (edge.nodes.getValue0().equals(node)) {
-				neighbor = edge.nodes.getValue1();
-			} else if (edge.nodes.getValue1().equals(node)) {
-				neighbor = edge.nodes.getValue0();
-			}
-			if (neighbor != null)
-					neighbors.add(new GraphNeighbor<>(neighbor, edge.weight, edge.data));
+		final int id = assertKnownNode(node);
+		final List<GraphEdge<ND, ED>> associatedEdges = adjacency.get(id);
+		final List<GraphNeighbor<ND, ED>> neighbors = new ArrayList<>(associatedEdges.size());
+		for (GraphEdge<ND, ED> edge : associatedEdges) {
+			final GraphNode<ND> neighbor = edge.getOtherNode(id);
+			neighbors.add(new GraphNeighbor<>(neighbor, edge.getWeight(), edge.data));
 		}
 		return neighbors;
 	}
 
+	/**
+	 * Passes each neighbor of a node within the graph to the given consumer, without allocating any objects.
+	 *
+	 * @param node The node whose neighbors to go through
+	 * @param consumer The function to call for each neighbor
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 *
+	 * @see NeighborConsumer
+	 */
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		final int id = assertKnownNode(node);
+		final List<GraphEdge<ND, ED>> associatedEdges = adjacency.get(id);
+		// Use an index instead of an iterator, which would need to be allocated
+		for (int i = 0; i < associatedEdges.size(); i++) {
+			final GraphEdge<ND, ED> edge = associatedEdges.get(i);
+			consumer.accept(edge.getOtherNode(id), edge.getWeight(), edge.data);
+		}
+	}
+
 	/**
 	 * Checks if the two given nodes are connected by an edge.
 	 *
@@ -283,10 +558,199 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 	 * @return {@code true} if the nodes are connected
 	 */
 	public boolean areConnected(GraphNode<ND> node1, GraphNode<ND> node2) {
-		for (GraphNeighbor<ND, ED> neighbor : getNeighbors(node1)) {
-			if (neighbor.node == node2) return true;
+		return getEdge(node1, node2) != null;
+	}
+
+	/**
+	 * Gets the edge that connects the two given nodes. If there are several, the one with the lowest weight is
+	 * returned.
+	 *
+	 * @param node1 The first of the nodes
+	 * @param node2 The second of the nodes
+	 * @return the edge, or {@code null} if the nodes aren't connected
+	 * @throws UnknownNodeException if {@code node1} isn't contained in the graph
+	 *
+	 * @see GraphEdge
+	 */
+	public GraphEdge<ND, ED> getEdge(GraphNode<ND> node1, GraphNode<ND> node2) {
+		final int id1 = assertKnownNode(node1);
+		final int id2 = findId(node2);
+		if (id2 == GraphNode.NO_ID) return null;
+		final EdgePair<ND, ED> pair = edgesByPair.get(pairKey(id1, id2));
+		if (pair == null) return null;
+		return pair.lightest;
+	}
+
+	/**
+	 * Applies many changes to this graph at once. The changes are recorded using the {@code GraphMutator} passed
+	 * to {@code mutations}, and are only applied after it returns. If it throws an exception, none of the changes
+	 * are applied.
+	 * <br>
+	 * All structural changes made in one batch count as a single change to the graph's version, and listeners are
+	 * notified of all changes in a single call to {@code GraphListener.batchApplied()}.
+	 *
+	 * @param mutations A function recording the changes to apply
+	 *
+	 * @see GraphMutator
+	 * @see GraphListener#batchApplied(List)
+	 */
+	public void batch(@NotNull Consumer<GraphMutator<ND, ED>> mutations) {
+		final Batch batch = new Batch();
+		mutations.accept(batch);
+		if (batch.operations.isEmpty()) return;
+
+		// Make room for all new nodes and edges up front
+		nodesById.ensureCapacity(nodesById.size() + batch.addedNodes);
+		adjacency.ensureCapacity(adjacency.size() + batch.addedNodes);
+		edges.ensureCapacity(edges.size() + batch.addedEdges);
+		// Hash tables can't be grown in place, so only copy them into larger ones if the batch would otherwise make
+		// them grow several times; the copy then costs less than the rehashing it saves.
+		if (batch.addedNodes > nodesByName.size()) {
+			final Map<String, GraphNode<ND>> presizedNodesByName =
+					new HashMap<>(hashCapacity(nodesByName.size() + batch.addedNodes));
+			presizedNodesByName.putAll(nodesByName);
+			nodesByName = presizedNodesByName;
 		}
-		return false;
+		if (batch.addedEdges > edgesByPair.size()) {
+			final Map<Long, EdgePair<ND, ED>> presizedEdgesByPair =
+					new HashMap<>(hashCapacity(edgesByPair.size() + batch.addedEdges));
+			presizedEdgesByPair.putAll(edgesByPair);
+			edgesByPair = presizedEdgesByPair;
+		}
+
+		final List<GraphChangeEvent<ND, ED>> events = new ArrayList<>(batch.operations.size());
+		batchEvents = events;
+		batchVersion = batch.structural ? version + 1 : version;
+		try {
+			batch.operations.forEach(Runnable::run);
+		} finally {
+			batchEvents = null;
+		}
+		if (events.isEmpty()) return;
+		version = batchVersion;
+		if (listeners.isEmpty()) return;
+		final List<GraphChangeEvent<ND, ED>> unmodifiableEvents = Collections.unmodifiableList(events);
+		notifyListeners(listener -> listener.batchApplied(unmodifiableEvents));
+	}
+
+	/**
+	 * Returns the current version of this graph. The version starts at {@code 0} and is incremented every time
+	 * a node or an edge is added or removed, so comparing versions is a cheap way to find out whether the graph
+	 * has changed.
+	 *
+	 * @return the current version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of changes that were made to this graph, including changes of edge weights, which don't
+	 * affect the version. A batch counts as one change per operation it applied.
+	 *
+	 * @return the modification count
+	 */
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Registers a listener that will be notified of every change to this graph.
+	 *
+	 * @param listener The listener to add
+	 *
+	 * @see GraphListener
+	 */
+	public void addListener(@NotNull GraphListener<ND, ED> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously registered listener.
+	 *
+	 * @param listener The listener to remove
+	 * @return {@code true} if the listener was registered
+	 */
+	public boolean removeListener(@NotNull GraphListener<ND, ED> listener) {
+		return listeners.remove(listener);
+	}
+
+	/**
+	 * Returns an immutable view of this graph at its current version, which is unaffected by any later changes.
+	 * <br>
+	 * Snapshots share their structure with the graph, so once the first snapshot has been taken, taking another
+	 * one takes constant time. In exchange, every change to the graph needs to do some extra work to keep older
+	 * snapshots intact, which grows with the degree of the nodes involved.
+	 *
+	 * @return the snapshot
+	 *
+	 * @see GraphSnapshot
+	 */
+	public GraphSnapshot<ND, ED> snapshot() {
+		if (snapshotEntries == null) {
+			// Start tracking the state shared with snapshots
+			PersistentVector<GraphSnapshot.Entry<ND, ED>> entries = PersistentVector.empty();
+			PersistentMap<String, Integer> idsByName = PersistentMap.empty();
+			for (int id = 0; id < nodesById.size(); id++) {
+				if (nodesById.get(id) == null) continue;
+				final GraphSnapshot.Entry<ND, ED> entry =
+						new GraphSnapshot.Entry<>(nodesById.get(id), adjacency.get(id));
+				entries = entries.set(id, entry);
+				idsByName = idsByName.put(entry.node.name, id);
+			}
+			snapshotEntries = entries;
+			snapshotIdsByName = idsByName;
+		}
+		if (latestSnapshot == null || latestSnapshotModificationCount != modificationCount) {
+			latestSnapshot = new GraphSnapshot<>(
+					snapshotEntries,
+					snapshotIdsByName,
+					version,
+					nodes.size(),
+					edges.size()
+			);
+			latestSnapshotModificationCount = modificationCount;
+		}
+		return latestSnapshot;
+	}
+
+	/**
+	 * Creates an immutable snapshot of this graph in compressed sparse row form, which is considerably faster
+	 * to traverse. The node indices in the snapshot correspond to the current node ids.
+	 * <br>
+	 * The snapshot doesn't change when this graph is modified afterwards.
+	 *
+	 * @return the snapshot
+	 *
+	 * @see CompactGraph
+	 */
+	@SuppressWarnings("unchecked")
+	public CompactGraph<ND, ED> freeze() {
+		final int nodeCount = nodesById.size();
+		final GraphNode<ND>[] compactNodes = nodesById.toArray(new GraphNode[0]);
+		final int[] offsets = new int[nodeCount + 1];
+		for (int id = 0; id < nodeCount; id++) {
+			final List<GraphEdge<ND, ED>> associatedEdges = adjacency.get(id);
+			offsets[id + 1] = offsets[id] + (associatedEdges == null ? 0 : associatedEdges.size());
+		}
+
+		final int arcCount = offsets[nodeCount];
+		final int[] targets = new int[arcCount];
+		final double[] weights = new double[arcCount];
+		final GraphEdge<ND, ED>[] arcEdges = new GraphEdge[arcCount];
+		for (int id = 0; id < nodeCount; id++) {
+			final List<GraphEdge<ND, ED>> associatedEdges = adjacency.get(id);
+			if (associatedEdges == null) continue;
+			int arc = offsets[id];
+			for (GraphEdge<ND, ED> edge : associatedEdges) {
+				targets[arc] = edge.nodeId0 == id ? edge.nodeId1 : edge.nodeId0;
+				weights[arc] = edge.getWeight();
+				arcEdges[arc] = edge;
+				arc++;
+			}
+		}
+		return new CompactGraph<>(compactNodes, offsets, targets, weights, arcEdges);
 	}
 
 	/**
@@ -334,9 +798,297 @@ public class Graph<ND extends JSONSerializable, ED extends JSONSerializable> imp
 		return obj;
 	}
 
-	private void assertKnownNode(GraphNode<ND> node) {
-		if (node == null || !nodes.contains(node)) {
+	/**
+	 * Replaces the snapshot entry of the node with the given id, unless the node has no entry because it is being
+	 * removed.
+	 *
+	 * @param id The id of the node
+	 * @param update A function computing the new entry from the old one
+	 */
+	private void updateSnapshotEntry(int id, UnaryOperator<GraphSnapshot.Entry<ND, ED>> update) {
+		final GraphSnapshot.Entry<ND, ED> entry = snapshotEntries.get(id);
+		if (entry == null) return;
+		snapshotEntries = snapshotEntries.set(id, update.apply(entry));
+	}
+
+	/**
+	 * Increments the modification count of the graph, as well as its version if the change is structural, and
+	 * notifies all listeners of the change.
+	 *
+	 * @param type The kind of change
+	 * @param node The changed node, if any
+	 * @param edge The changed edge, if any
+	 */
+	private void fireChange(GraphChangeEvent.Type type, GraphNode<ND> node, GraphEdge<ND, ED> edge) {
+		modificationCount++;
+		if (batchEvents != null) {
+			// The whole batch counts as one change, so the version is only incremented once it has been applied.
+			batchEvents.add(new GraphChangeEvent<>(type, node, edge, batchVersion));
+			return;
+		}
+		if (type.isStructural()) version++;
+		if (listeners.isEmpty()) return;
+		final GraphChangeEvent<ND, ED> event = new GraphChangeEvent<>(type, node, edge, version);
+		notifyListeners(listener -> listener.graphChanged(event));
+	}
+
+	/**
+	 * Passes every registered listener to the given notification. This is called once for every change, or once
+	 * for every batch, after the graph itself has been updated.
+	 * <br>
+	 * Subclasses that keep additional state in sync with the graph can override this to defer the notification
+	 * until that state has been updated as well.
+	 *
+	 * @param notification The notification to deliver to each listener
+	 */
+	protected void notifyListeners(Consumer<GraphListener<ND, ED>> notification) {
+		for (GraphListener<ND, ED> listener : listeners) notification.accept(listener);
+	}
+
+	/**
+	 * Finds the edge in this graph that is equal to the given edge.
+	 *
+	 * @param edge The edge to find
+	 * @return the contained edge, or {@code null} if the graph doesn't contain the edge
+	 */
+	private GraphEdge<ND, ED> findEdge(GraphEdge<ND, ED> edge) {
+		// Fast path: the edge itself is part of this graph
+		if (edge.index >= 0 && edge.index < edges.size() && edges.get(edge.index) == edge) return edge;
+		// Otherwise, look for an equal edge among the edges of its first node
+		final int id = findId(edge.nodes.getValue0());
+		if (id == GraphNode.NO_ID) return null;
+		for (GraphEdge<ND, ED> associatedEdge : adjacency.get(id)) {
+			if (associatedEdge.equals(edge)) return associatedEdge;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes an edge that is contained in this graph in constant time, by moving the last edge of each
+	 * affected list into the slot the removed edge occupied.
+	 *
+	 * @param edge The edge to remove; must be contained in this graph
+	 */
+	private void removeEdgeAt(GraphEdge<ND, ED> edge) {
+		final GraphEdge<ND, ED> lastEdge = edges.remove(edges.size() - 1);
+		if (lastEdge != edge) {
+			edges.set(edge.index, lastEdge);
+			lastEdge.index = edge.index;
+		}
+		removeFromAdjacency(edge.nodeId0, edge.adjacencyIndex0);
+		if (!edge.isLoop()) removeFromAdjacency(edge.nodeId1, edge.adjacencyIndex1);
+		final long pairKey = pairKey(edge.nodeId0, edge.nodeId1);
+		final EdgePair<ND, ED> pair = edgesByPair.get(pairKey);
+		if (--pair.count == 0) {
+			edgesByPair.remove(pairKey);
+		} else if (pair.lightest == edge) {
+			// Only if there are parallel edges, search for the next lightest one among them
+			pair.lightest = findLightestEdge(edge.nodeId0, edge.nodeId1);
+		}
+		if (snapshotEntries != null) {
+			updateSnapshotEntry(edge.nodeId0, entry -> entry.withoutEdge(edge));
+			if (!edge.isLoop()) updateSnapshotEntry(edge.nodeId1, entry -> entry.withoutEdge(edge));
+		}
+		edge.index = GraphEdge.NO_INDEX;
+		fireChange(GraphChangeEvent.Type.EDGE_REMOVED, null, edge);
+	}
+
+	/**
+	 * Searches the adjacency lists for the edge with the lowest weight between the nodes with the given ids. This
+	 * is only needed if there are several edges between them.
+	 *
+	 * @param id1 The id of the first node
+	 * @param id2 The id of the second node
+	 * @return the edge, or {@code null} if the nodes aren't connected
+	 */
+	private GraphEdge<ND, ED> findLightestEdge(int id1, int id2) {
+		// Go through the shorter of the two adjacency lists
+		final int id = adjacency.get(id1).size() <= adjacency.get(id2).size() ? id1 : id2;
+		GraphEdge<ND, ED> lightest = null;
+		for (GraphEdge<ND, ED> edge : adjacency.get(id)) {
+			if (pairKey(edge.nodeId0, edge.nodeId1) != pairKey(id1, id2)) continue;
+			if (lightest == null) lightest = edge;
+			else lightest = lighterEdge(lightest, edge);
+		}
+		return lightest;
+	}
+
+	/**
+	 * Returns the edge with the lower weight, preferring the first one.
+	 */
+	private static <ND extends JSONSerializable, ED extends JSONSerializable> GraphEdge<ND, ED> lighterEdge(
+			GraphEdge<ND, ED> edge1,
+			GraphEdge<ND, ED> edge2
+	) {
+		return edge2.getWeight() < edge1.getWeight() ? edge2 : edge1;
+	}
+
+	/**
+	 * Computes the initial capacity a hash table needs to hold the given number of entries without growing.
+	 *
+	 * @param size The number of entries
+	 * @return the capacity
+	 */
+	static int hashCapacity(int size) {
+		return (int) Math.min(size / 0.75 + 1, 1 << 30);
+	}
+
+	/**
+	 * Computes the key that identifies the unordered pair of nodes with the given ids.
+	 *
+	 * @param id1 The id of the first node
+	 * @param id2 The id of the second node
+	 * @return the key of the pair
+	 */
+	private static long pairKey(int id1, int id2) {
+		return ((long) Math.min(id1, id2) << 32) | Math.max(id1, id2);
+	}
+
+	/**
+	 * Removes the edge at the given position from the adjacency list of the given node in constant time,
+	 * by moving the last edge of the list into its slot.
+	 *
+	 * @param id The id of the node whose adjacency list to remove the edge from
+	 * @param position The position of the edge in the adjacency list
+	 */
+	private void removeFromAdjacency(int id, int position) {
+		final List<GraphEdge<ND, ED>> associatedEdges = adjacency.get(id);
+		final GraphEdge<ND, ED> lastEdge = associatedEdges.remove(associatedEdges.size() - 1);
+		if (position == associatedEdges.size()) return;
+		associatedEdges.set(position, lastEdge);
+		if (lastEdge.nodeId0 == id) lastEdge.adjacencyIndex0 = position;
+		else lastEdge.adjacencyIndex1 = position;
+	}
+
+	/**
+	 * Finds the id of the node in this graph that is equal to the given node.
+	 *
+	 * @param node The node to find the id of
+	 * @return the id, or {@code GraphNode.NO_ID} if the graph doesn't contain the node
+	 */
+	private int findId(GraphNode<ND> node) {
+		if (node == null) return GraphNode.NO_ID;
+		// Fast path: the node itself is part of this graph
+		if (node.id >= 0 && node.id < nodesById.size() && nodesById.get(node.id) == node) return node.id;
+		// Otherwise, look for a node with the same name
+		final GraphNode<ND> contained = nodesByName.get(node.name);
+		if (contained == null) return GraphNode.NO_ID;
+		return contained.id;
+	}
+
+	private int assertKnownNode(GraphNode<ND> node) {
+		final int id = findId(node);
+		if (id == GraphNode.NO_ID) {
 			throw new UnknownNodeException(node);
 		}
+		return id;
+	}
+
+	/**
+	 * The edges between a pair of nodes: the lightest one, and how many there are, so that the lightest edge
+	 * only has to be searched for if there are several.
+	 */
+	private static class EdgePair<ND extends JSONSerializable, ED extends JSONSerializable> {
+		GraphEdge<ND, ED> lightest;
+		int count = 0;
+	}
+
+	/**
+	 * The {@code GraphMutator} used to record the changes of a batch.
+	 */
+	private class Batch implements GraphMutator<ND, ED> {
+		/**
+		 * The recorded changes, in order.
+		 */
+		private final List<Runnable> operations = new ArrayList<>();
+
+		/**
+		 * The nodes that were added ({@code name -> node}) or removed ({@code name -> null}) in this batch.
+		 */
+		private final Map<String, GraphNode<ND>> pendingNodes = new HashMap<>();
+
+		/**
+		 * The edges that were added in this batch.
+		 */
+		private final Set<GraphEdge<ND, ED>> pendingEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		private int addedNodes = 0;
+		private int addedEdges = 0;
+
+		/**
+		 * Whether any structural changes were recorded.
+		 */
+		private boolean structural = false;
+
+		@Override
+		public GraphNode<ND> addNode(@NotNull String name, ND value) {
+			final GraphNode<ND> node = new GraphNode<>(name, value);
+			if (addNode(node)) return node;
+			return null;
+		}
+
+		@Override
+		public boolean addNode(@NotNull GraphNode<ND> node) {
+			if (getNode(node.name) != null) return false;
+			// A node that is removed earlier in this batch will have left the graph by the time it is added again.
+			final boolean removedInBatch = pendingNodes.containsKey(node.name) && Graph.this.getNode(node.name) == node;
+			if (node.id != GraphNode.NO_ID && !removedInBatch)
+				throw new IllegalArgumentException("This node is already contained in another graph: " + node);
+			pendingNodes.put(node.name, node);
+			addedNodes++;
+			structural = true;
+			operations.add(() -> Graph.this.addNode(node));
+			return true;
+		}
+
+		@Override
+		public void removeNode(@NotNull GraphNode<ND> node) {
+			if (getNode(node.name) == null) return;
+			pendingNodes.put(node.name, null);
+			structural = true;
+			operations.add(() -> Graph.this.removeNode(node));
+		}
+
+		@Override
+		public GraphEdge<ND, ED> addEdge(@NotNull GraphNode<ND> node1, @NotNull GraphNode<ND> node2, double weight, ED data) {
+			final GraphEdge<ND, ED> edge = new GraphEdge<>(node1, node2, weight, data);
+			addEdge(edge);
+			return edge;
+		}
+
+		@Override
+		public void addEdge(@NotNull GraphEdge<ND, ED> edge) {
+			assertPendingNode(edge.nodes.getValue0());
+			assertPendingNode(edge.nodes.getValue1());
+			if (edge.index != GraphEdge.NO_INDEX || !pendingEdges.add(edge))
+				throw new IllegalArgumentException("This edge is already contained in a graph: " + edge);
+			addedEdges++;
+			structural = true;
+			operations.add(() -> Graph.this.addEdge(edge));
+		}
+
+		@Override
+		public void removeEdge(@NotNull GraphEdge<ND, ED> edge) {
+			pendingEdges.remove(edge);
+			structural = true;
+			operations.add(() -> Graph.this.removeEdge(edge));
+		}
+
+		@Override
+		public void setWeight(@NotNull GraphEdge<ND, ED> edge, double weight) {
+			operations.add(() -> Graph.this.setWeight(edge, weight));
+		}
+
+		@Override
+		public GraphNode<ND> getNode(@NotNull String name) {
+			if (pendingNodes.containsKey(name)) return pendingNodes.get(name);
+			return Graph.this.getNode(name);
+		}
+
+		private void assertPendingNode(GraphNode<ND> node) {
+			if (node == null || getNode(node.name) == null) {
+				throw new UnknownNodeException(node);
+			}
+		}
 	}
 }
@@ -0,0 +1,70 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+
+/**
+ * Describes a single change to a graph, meaning a node or an edge being added or removed, or the weight of an edge
+ * being changed.
+ *
+ * @param <ND> The node data type of the graph
+ * @param <ED> The edge data type of the graph
+ *
+ * @see GraphListener
+ */
+public class GraphChangeEvent<ND extends JSONSerializable, ED extends JSONSerializable> {
+	/**
+	 * The kind of change that occurred.
+	 */
+	public final Type type;
+
+	/**
+	 * The node that was added or removed, or {@code null} if an edge was changed.
+	 */
+	public final GraphNode<ND> node;
+
+	/**
+	 * The edge that was added, removed or whose weight was changed, or {@code null} if a node was changed.
+	 */
+	public final GraphEdge<ND, ED> edge;
+
+	/**
+	 * The version of the graph after the change. Since weight changes aren't structural changes, they don't
+	 * increment the version.
+	 *
+	 * @see Graph#getVersion()
+	 */
+	public final long version;
+
+	/**
+	 * Constructs a graph change event.
+	 *
+	 * @param type The kind of change
+	 * @param node The changed node, if any
+	 * @param edge The changed edge, if any
+	 * @param version The version of the graph after the change
+	 */
+	public GraphChangeEvent(Type type, GraphNode<ND> node, GraphEdge<ND, ED> edge, long version) {
+		this.type = type;
+		this.node = node;
+		this.edge = edge;
+		this.version = version;
+	}
+
+	public enum Type {
+		NODE_ADDED,
+		NODE_REMOVED,
+		EDGE_ADDED,
+		EDGE_REMOVED,
+		EDGE_WEIGHT_CHANGED;
+
+		/**
+		 * Checks whether this kind of change alters the structure of the graph, meaning which nodes and edges
+		 * it contains.
+		 *
+		 * @return {@code true} if the change is structural
+		 */
+		public boolean isStructural() {
+			return this != EDGE_WEIGHT_CHANGED;
+		}
+	}
+}
@@ -13,12 +13,18 @@ import java.util.Objects;
  * <br>
  * Edges connect two nodes, and have a numeric weight and optionally custom data
  * associated with them. If no values are provided, the weight will be set to {@code 1} and the
- * data to {@code null}.
+ * data to {@code null}. The weight of an edge can be changed after it was added to a graph using
+ * {@code Graph.setWeight()}.
  *
  * @param <ND> The node data type of the node the edge connects
  * @param <D> The type of the custom data of the edge
  */
 public class GraphEdge<ND extends JSONSerializable, D extends JSONSerializable> implements JSONSerializable {
+	/**
+	 * The index an edge has when it isn't contained in any graph.
+	 */
+	static final int NO_INDEX = -1;
+
 	/**
 	 * The nodes this edge connects.
 	 *
@@ -28,14 +34,36 @@ public class GraphEdge<ND extends JSONSerializable, D extends JSONSerializable>
 
 	/**
 	 * The weight of this edge. Set to {@code 1} by default.
+	 * <br>
+	 * This is volatile since it may be changed while other threads are reading a {@code ConcurrentGraph}.
 	 */
-	public final double weight;
+	private volatile double weight;
 
 	/**
 	 * The custom data associated to this edge. Set to {@code null} by default.
 	 */
 	public final D data;
 
+	/*
+	 * The following fields are managed by the graph that contains this edge, and allow it to be removed from the
+	 * graph in constant time.
+	 */
+
+	/**
+	 * The position of this edge in the edge list of the graph that contains it.
+	 */
+	int index = NO_INDEX;
+
+	/**
+	 * The ids of the nodes this edge connects, within the graph that contains it.
+	 */
+	int nodeId0, nodeId1;
+
+	/**
+	 * The positions of this edge in the adjacency lists of the nodes it connects.
+	 */
+	int adjacencyIndex0, adjacencyIndex1;
+
 	/**
 	 * Creates an edge between the two provided nodes, with the given weight and data.
 	 *
@@ -50,6 +78,44 @@ public class GraphEdge<ND extends JSONSerializable, D extends JSONSerializable>
 		this.data = data;
 	}
 
+	/**
+	 * Returns the weight of this edge.
+	 *
+	 * @return the weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Changes the weight of this edge. Should only be called by the graph that contains it.
+	 *
+	 * @param weight The new weight
+	 */
+	void setWeight(double weight) {
+		this.weight = weight;
+	}
+
+	/**
+	 * Checks whether this edge connects a node to itself. Only valid while the edge is contained in a graph.
+	 *
+	 * @return {@code true} if the edge is a self-loop
+	 */
+	boolean isLoop() {
+		return nodeId0 == nodeId1;
+	}
+
+	/**
+	 * Returns the node on the other side of this edge, seen from the node with the given id. Only valid while
+	 * the edge is contained in a graph.
+	 *
+	 * @param id The id of one of the nodes this edge connects
+	 * @return the other node
+	 */
+	GraphNode<ND> getOtherNode(int id) {
+		return nodeId0 == id ? nodes.getValue1() : nodes.getValue0();
+	}
+
 	/**
 	 * Creates a string for this edge representation that can, for example, be printed to the console.
 	 *
@@ -86,7 +152,7 @@ public class GraphEdge<ND extends JSONSerializable, D extends JSONSerializable>
 	 * Checks if the edge equals the given object. For objects that aren't edges, this
 	 * will always return {@code false}.
 	 * <br>
-	 * Two edges are considered equal if the nodes they connect, their weight and their data are equal.
+	 * Two edges are considered equal if the nodes they connect and their data are equal.
 	 *
 	 * @param o the object to compare the edge to
 	 * @return whether the edge and the object are considered equal
@@ -96,11 +162,11 @@ public class GraphEdge<ND extends JSONSerializable, D extends JSONSerializable>
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		GraphEdge<?, ?> graphEdge = (GraphEdge<?, ?>) o;
-		return Double.compare(graphEdge.weight, weight) == 0 && Objects.equals(nodes, graphEdge.nodes) && Objects.equals(data, graphEdge.data);
+		return Objects.equals(nodes, graphEdge.nodes) && Objects.equals(data, graphEdge.data);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(nodes, weight, data);
+		return Objects.hash(nodes, data);
 	}
 }
@@ -0,0 +1,36 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+
+import java.util.List;
+
+/**
+ * A listener that is notified whenever the structure of a graph changes.
+ *
+ * @param <ND> The node data type of the graph
+ * @param <ED> The edge data type of the graph
+ *
+ * @see Graph#addListener(GraphListener)
+ * @see GraphChangeEvent
+ */
+@FunctionalInterface
+public interface GraphListener<ND extends JSONSerializable, ED extends JSONSerializable> {
+	/**
+	 * Called after a node or an edge was added to or removed from the graph, or the weight of an edge was changed.
+	 *
+	 * @param event The event describing the change
+	 */
+	void graphChanged(GraphChangeEvent<ND, ED> event);
+
+	/**
+	 * Called once after a batch of changes was applied to the graph. By default, this calls
+	 * {@code graphChanged()} for each individual change.
+	 *
+	 * @param events The events describing the changes, in the order they were applied
+	 *
+	 * @see Graph#batch(java.util.function.Consumer)
+	 */
+	default void batchApplied(List<GraphChangeEvent<ND, ED>> events) {
+		events.forEach(this::graphChanged);
+	}
+}
@@ -0,0 +1,88 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Records changes to a graph as part of a batch. None of the changes are applied until the batch is committed,
+ * at which point they are applied together and reported to listeners as a single change.
+ * <br>
+ * All changes are validated as soon as they are recorded, taking into account the changes recorded before them,
+ * so a batch that completes without an exception can always be applied in full.
+ *
+ * @param <ND> The node data type of the graph
+ * @param <ED> The edge data type of the graph
+ *
+ * @see Graph#batch(java.util.function.Consumer)
+ */
+public interface GraphMutator<ND extends JSONSerializable, ED extends JSONSerializable> {
+	/**
+	 * Records the addition of a new node with the given name and value.
+	 *
+	 * @param name The name of the new node
+	 * @param value The value of the new node
+	 * @return the node that will be added, or {@code null} if a node with that name will already be contained
+	 */
+	GraphNode<ND> addNode(@NotNull String name, ND value);
+
+	/**
+	 * Records the addition of the given node, if a node with the same name won't already be contained.
+	 *
+	 * @param node The node to add
+	 * @return {@code true} if the node will be added
+	 * @throws IllegalArgumentException if the node is already contained in a different graph
+	 */
+	boolean addNode(@NotNull GraphNode<ND> node);
+
+	/**
+	 * Records the removal of the given node and all associated edges.
+	 *
+	 * @param node The node to remove
+	 */
+	void removeNode(@NotNull GraphNode<ND> node);
+
+	/**
+	 * Records the addition of a new edge between the two given nodes, with the given weight and data.
+	 *
+	 * @param node1 The first of the nodes the edge connects
+	 * @param node2 The second of the nodes the edge connects
+	 * @param weight The weight of the edge
+	 * @param data The data of the edge
+	 * @return the edge that will be added
+	 * @throws UnknownNodeException if one of the nodes won't be contained in the graph
+	 */
+	GraphEdge<ND, ED> addEdge(@NotNull GraphNode<ND> node1, @NotNull GraphNode<ND> node2, double weight, ED data);
+
+	/**
+	 * Records the addition of the given edge.
+	 *
+	 * @param edge The edge to add
+	 * @throws UnknownNodeException if one of the nodes of the edge won't be contained in the graph
+	 * @throws IllegalArgumentException if the edge is already contained in a graph, or was already added in
+	 * 		   this batch
+	 */
+	void addEdge(@NotNull GraphEdge<ND, ED> edge);
+
+	/**
+	 * Records the removal of the given edge.
+	 *
+	 * @param edge The edge to remove
+	 */
+	void removeEdge(@NotNull GraphEdge<ND, ED> edge);
+
+	/**
+	 * Records a change of the weight of the given edge.
+	 *
+	 * @param edge The edge whose weight to change
+	 * @param weight The new weight
+	 */
+	void setWeight(@NotNull GraphEdge<ND, ED> edge, double weight);
+
+	/**
+	 * Gets a node by name, as it will be contained in the graph once the changes recorded so far are applied.
+	 *
+	 * @param name The name to search for
+	 * @return The node, or {@code null} if none will be contained
+	 */
+	GraphNode<ND> getNode(@NotNull String name);
+}
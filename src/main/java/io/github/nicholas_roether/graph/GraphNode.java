@@ -14,10 +14,20 @@ import java.util.Objects;
  * <br>
  * Two nodes are considered equal
  * if their names are equal.
+ * <br>
+ * When a node is added to a graph, it is assigned an id that is unique within that graph, and is never given to
+ * another node of that graph, even after this one is removed. Ids are small, non-negative integers, so they can be
+ * used to index arrays instead of hashing nodes. Since the id is stored in the node, a node object can only be
+ * contained in one graph at a time; adding it to a second graph throws an {@code IllegalArgumentException}.
  *
  * @param <D> The type of the node data.
  */
 public class GraphNode<D extends JSONSerializable> implements JSONSerializable {
+	/**
+	 * The id a node has when it isn't contained in any graph.
+	 */
+	public static final int NO_ID = -1;
+
 	/**
 	 * The name of this node. Nodes are considered equal if their names are equal.
 	 */
@@ -28,6 +38,15 @@ public class GraphNode<D extends JSONSerializable> implements JSONSerializable {
 	 */
 	public final D data;
 
+	/**
+	 * The id of this node within the graph that contains it. Managed by {@code Graph}.
+	 */
+	int id = NO_ID;
+
+	/**
+	 * The hash code of this node, cached since it only depends on the name.
+	 */
+	private final int hash;
 
 	/**
 	 * Constructs a node with the given name and value.
@@ -38,6 +57,20 @@ public class GraphNode<D extends JSONSerializable> implements JSONSerializable {
 	public GraphNode(@NotNull String name, D data) {
 		this.name = name;
 		this.data = data;
+		this.hash = Objects.hash(name);
+	}
+
+	/**
+	 * Returns the id of this node within the graph that contains it. Ids of removed nodes are
+	 * never reused for nodes that are added later.
+	 *
+	 * @return the id, or {@code NO_ID} if the node isn't contained in a graph
+	 *
+	 * @see Graph#getNode(int)
+	 * @see Graph#getNodeIdBound()
+	 */
+	public int getId() {
+		return id;
 	}
 
 	/**
@@ -85,6 +118,6 @@ public class GraphNode<D extends JSONSerializable> implements JSONSerializable {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(name);
+		return hash;
 	}
 }
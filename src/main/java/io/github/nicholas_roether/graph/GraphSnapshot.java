@@ -0,0 +1,324 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable view of a graph at a specific version.
+ * <br>
+ * Snapshots are created using {@code Graph.snapshot()}. They share their structure with the graph and with each
+ * other, so taking a snapshot doesn't copy the graph, and a snapshot keeps showing the nodes and edges of its
+ * version no matter how the graph is changed afterwards. Since snapshots are never modified, they can be read
+ * from any number of threads without synchronization. Each snapshot stores the edge weights it was taken with,
+ * even though changing a weight doesn't create a new version. Node and edge data is shared with the graph, however,
+ * and so are the edge objects, whose {@code getWeight()} always returns the current weight.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ *
+ * @see Graph#snapshot()
+ */
+public class GraphSnapshot<ND extends JSONSerializable, ED extends JSONSerializable> implements GraphView<ND, ED> {
+	/**
+	 * The state of each node, indexed by node id.
+	 */
+	private final PersistentVector<Entry<ND, ED>> entries;
+
+	/**
+	 * Maps the names of the nodes to the id they had at this snapshot's version.
+	 */
+	private final PersistentMap<String, Integer> idsByName;
+
+	private final long version;
+	private final int nodeCount;
+	private final int edgeCount;
+
+	GraphSnapshot(
+			PersistentVector<Entry<ND, ED>> entries,
+			PersistentMap<String, Integer> idsByName,
+			long version,
+			int nodeCount,
+			int edgeCount
+	) {
+		this.entries = entries;
+		this.idsByName = idsByName;
+		this.version = version;
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+	}
+
+	/**
+	 * Returns the version of the graph this snapshot shows.
+	 *
+	 * @return the version
+	 *
+	 * @see Graph#getVersion()
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of nodes in this snapshot.
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the number of edges in this snapshot.
+	 *
+	 * @return the number of edges
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Returns an upper bound for the ids of the nodes in this snapshot.
+	 *
+	 * @return the upper bound for node ids
+	 *
+	 * @see Graph#getNodeIdBound()
+	 */
+	public int getNodeIdBound() {
+		return entries.size();
+	}
+
+	@Override
+	public int getNodeIndexBound() {
+		return getNodeIdBound();
+	}
+
+	/**
+	 * Finds the id the given node had at this snapshot's version.
+	 *
+	 * @param node The node to find
+	 * @return The id of the node, or {@code -1} if it isn't part of this snapshot
+	 */
+	@Override
+	public int indexOf(GraphNode<ND> node) {
+		if (node == null) return GraphNode.NO_ID;
+		return findId(node);
+	}
+
+	/**
+	 * Gets a node out of the snapshot by the id it had at the snapshot's version.
+	 *
+	 * @param id The id of the node
+	 * @return The node, or {@code null} if no node had this id
+	 */
+	@Override
+	public GraphNode<ND> getNode(int id) {
+		final Entry<ND, ED> entry = entries.get(id);
+		if (entry == null) return null;
+		return entry.node;
+	}
+
+	/**
+	 * Checks whether the given node is part of this snapshot.
+	 *
+	 * @param node The node to check
+	 * @return {@code true} if the node is contained
+	 */
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return node != null && findEntry(node) != null;
+	}
+
+	/**
+	 * Returns all nodes in this snapshot. This takes time proportional to the number of nodes.
+	 *
+	 * @return an immutable list of all nodes
+	 */
+	public List<GraphNode<ND>> getNodes() {
+		final List<GraphNode<ND>> nodes = new ArrayList<>(nodeCount);
+		for (int id = 0; id < entries.size(); id++) {
+			final Entry<ND, ED> entry = entries.get(id);
+			if (entry != null) nodes.add(entry.node);
+		}
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * Returns all edges in this snapshot. This takes time proportional to the number of nodes and edges.
+	 *
+	 * @return an immutable list of all edges
+	 */
+	public List<GraphEdge<ND, ED>> getEdges() {
+		final List<GraphEdge<ND, ED>> edges = new ArrayList<>(edgeCount);
+		for (int id = 0; id < entries.size(); id++) {
+			final Entry<ND, ED> entry = entries.get(id);
+			if (entry == null) continue;
+			// Every edge is listed by the first of the nodes it connects.
+			for (GraphEdge<ND, ED> edge : entry.edges) {
+				if (edge.nodes.getValue0().equals(entry.node)) edges.add(edge);
+			}
+		}
+		return Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Gets the neighbors of a node within this snapshot.
+	 *
+	 * @param node The node whose neighbors to get.
+	 * @return The neighbors of the node, as {@code GraphNeighbor}-objects.
+	 * @throws UnknownNodeException if the given node isn't contained in the snapshot.
+	 */
+	@Override
+	public List<GraphNeighbor<ND, ED>> getNeighbors(@NotNull GraphNode<ND> node) {
+		final Entry<ND, ED> entry = assertKnownEntry(node);
+		final List<GraphNeighbor<ND, ED>> neighbors = new ArrayList<>(entry.edges.length);
+		for (int i = 0; i < entry.edges.length; i++) {
+			final GraphEdge<ND, ED> edge = entry.edges[i];
+			neighbors.add(new GraphNeighbor<>(entry.getOtherNode(edge), entry.weights[i], edge.data));
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Passes each neighbor of a node within this snapshot to the given consumer, without allocating any objects.
+	 *
+	 * @param node The node whose neighbors to go through
+	 * @param consumer The function to call for each neighbor
+	 * @throws UnknownNodeException if the given node isn't contained in the snapshot.
+	 */
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		final Entry<ND, ED> entry = assertKnownEntry(node);
+		for (int i = 0; i < entry.edges.length; i++) {
+			final GraphEdge<ND, ED> edge = entry.edges[i];
+			consumer.accept(entry.getOtherNode(edge), entry.weights[i], edge.data);
+		}
+	}
+
+	/**
+	 * Checks if the two given nodes are connected by an edge in this snapshot.
+	 *
+	 * @param node1 The first of the nodes to check
+	 * @param node2 The second of the nodes to check
+	 * @return {@code true} if the nodes are connected
+	 */
+	public boolean areConnected(GraphNode<ND> node1, GraphNode<ND> node2) {
+		return getEdge(node1, node2) != null;
+	}
+
+	/**
+	 * Gets the edge that connects the two given nodes in this snapshot. If there are several, the one with the
+	 * lowest weight at this snapshot's version is returned.
+	 *
+	 * @param node1 The first of the nodes
+	 * @param node2 The second of the nodes
+	 * @return the edge, or {@code null} if the nodes aren't connected
+	 * @throws UnknownNodeException if {@code node1} isn't contained in the snapshot
+	 */
+	public GraphEdge<ND, ED> getEdge(GraphNode<ND> node1, GraphNode<ND> node2) {
+		final Entry<ND, ED> entry = assertKnownEntry(node1);
+		GraphEdge<ND, ED> lightest = null;
+		double lightestWeight = 0;
+		for (int i = 0; i < entry.edges.length; i++) {
+			if (!entry.getOtherNode(entry.edges[i]).equals(node2)) continue;
+			if (lightest == null || entry.weights[i] < lightestWeight) {
+				lightest = entry.edges[i];
+				lightestWeight = entry.weights[i];
+			}
+		}
+		return lightest;
+	}
+
+	private Entry<ND, ED> findEntry(GraphNode<ND> node) {
+		final int id = findId(node);
+		if (id == GraphNode.NO_ID) return null;
+		return entries.get(id);
+	}
+
+	private int findId(GraphNode<ND> node) {
+		// The node's own id may have changed since this version, so look it up by name instead.
+		final Integer id = idsByName.get(node.name);
+		if (id == null) return GraphNode.NO_ID;
+		return id;
+	}
+
+	private Entry<ND, ED> assertKnownEntry(GraphNode<ND> node) {
+		final Entry<ND, ED> entry = node == null ? null : findEntry(node);
+		if (entry == null) {
+			throw new UnknownNodeException(node);
+		}
+		return entry;
+	}
+
+	/**
+	 * The state of a single node at a specific version. Entries are never modified, only replaced.
+	 */
+	static final class Entry<ND extends JSONSerializable, ED extends JSONSerializable> {
+		final GraphNode<ND> node;
+		final GraphEdge<ND, ED>[] edges;
+
+		/**
+		 * The weight of each edge at the version of this entry, at the same position as the edge.
+		 */
+		final double[] weights;
+
+		@SuppressWarnings("unchecked")
+		Entry(GraphNode<ND> node) {
+			this(node, new GraphEdge[0], new double[0]);
+		}
+
+		private Entry(GraphNode<ND> node, GraphEdge<ND, ED>[] edges, double[] weights) {
+			this.node = node;
+			this.edges = edges;
+			this.weights = weights;
+		}
+
+		/**
+		 * Creates the entry of a node with the given edges, at their current weights.
+		 *
+		 * @param node The node
+		 * @param edges The edges of the node
+		 */
+		@SuppressWarnings("unchecked")
+		Entry(GraphNode<ND> node, List<GraphEdge<ND, ED>> edges) {
+			this(node, edges.toArray(new GraphEdge[0]), new double[edges.size()]);
+			for (int i = 0; i < this.edges.length; i++) weights[i] = this.edges[i].getWeight();
+		}
+
+		Entry<ND, ED> withEdge(GraphEdge<ND, ED> edge) {
+			final GraphEdge<ND, ED>[] newEdges = Arrays.copyOf(edges, edges.length + 1);
+			final double[] newWeights = Arrays.copyOf(weights, weights.length + 1);
+			newEdges[edges.length] = edge;
+			newWeights[weights.length] = edge.getWeight();
+			return new Entry<>(node, newEdges, newWeights);
+		}
+
+		Entry<ND, ED> withoutEdge(GraphEdge<ND, ED> edge) {
+			final GraphEdge<ND, ED>[] newEdges = Arrays.copyOf(edges, Math.max(edges.length - 1, 0));
+			final double[] newWeights = new double[newEdges.length];
+			int position = 0;
+			for (int i = 0; i < edges.length; i++) {
+				if (edges[i] == edge || position == newEdges.length) continue;
+				newEdges[position] = edges[i];
+				newWeights[position++] = weights[i];
+			}
+			return new Entry<>(node, newEdges, newWeights);
+		}
+
+		Entry<ND, ED> withWeight(GraphEdge<ND, ED> edge, double weight) {
+			final double[] newWeights = weights.clone();
+			for (int i = 0; i < edges.length; i++) {
+				if (edges[i] == edge) newWeights[i] = weight;
+			}
+			return new Entry<>(node, edges, newWeights);
+		}
+
+		GraphNode<ND> getOtherNode(GraphEdge<ND, ED> edge) {
+			return edge.nodes.getValue0().equals(node) ? edge.nodes.getValue1() : edge.nodes.getValue0();
+		}
+	}
+}
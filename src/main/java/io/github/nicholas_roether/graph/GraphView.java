@@ -0,0 +1,117 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only view of a graph, providing only what is needed to traverse it: checking whether a node belongs to the
+ * graph, and going through the neighbors of a node.
+ * <br>
+ * This is implemented by all graph representations that are made up of {@code GraphNode}s, as well as by
+ * {@code ImplicitGraph}, whose nodes are only created once they are reached. Algorithms that only traverse a graph,
+ * like {@code AStar}, should use this interface, so that they work with all of them.
+ * <br>
+ * Views may assign their nodes dense indices, which allows algorithms to store information about the nodes in arrays
+ * instead of maps. Views that don't, like {@code ImplicitGraph}, return {@code -1} from
+ * {@code getNodeIndexBound()}.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ *
+ * @see ImplicitGraph
+ */
+public interface GraphView<ND extends JSONSerializable, ED extends JSONSerializable> {
+	/**
+	 * Checks whether the given node is part of this graph.
+	 *
+	 * @param node The node to check
+	 * @return {@code true} if the node is contained
+	 */
+	boolean contains(GraphNode<ND> node);
+
+	/**
+	 * Returns an upper bound for the indices of the nodes in this graph. All indices are between {@code 0}
+	 * (inclusive) and this bound (exclusive), though not every index in between necessarily belongs to a node. The
+	 * bound may grow if nodes are added to the graph.
+	 *
+	 * @return the upper bound for node indices, or {@code -1} if the nodes of this graph aren't indexed
+	 */
+	default int getNodeIndexBound() {
+		return -1;
+	}
+
+	/**
+	 * Finds the index of the given node in this graph.
+	 *
+	 * @param node The node to find
+	 * @return The index of the node, or {@code -1} if it isn't part of this graph or the nodes aren't indexed
+	 */
+	default int indexOf(GraphNode<ND> node) {
+		return -1;
+	}
+
+	/**
+	 * Gets the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return The node, or {@code null} if there is no node with this index or the nodes aren't indexed
+	 */
+	default GraphNode<ND> getNode(int index) {
+		return null;
+	}
+
+	/**
+	 * Returns the number of changes that were made to this graph, including changes of edge weights. Information
+	 * computed from the graph, like a precomputed index, can record this number and compare it later to find out
+	 * whether it is out of date. The number only ever grows, but may grow by more than one per change.
+	 *
+	 * @return the number of changes, or {@code 0} if this graph can't change
+	 */
+	default long getModificationCount() {
+		return 0;
+	}
+
+	/**
+	 * Passes each neighbor of a node within the graph to the given consumer.
+	 *
+	 * @param node The node whose neighbors to go through
+	 * @param consumer The function to call for each neighbor
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 */
+	void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer);
+
+	/**
+	 * Passes the index and weight of each arc leaving the node with the given index to the given consumer. This only
+	 * works if the nodes of this graph are indexed.
+	 * <br>
+	 * By default, this looks up the node and its neighbors and goes through {@code forEachNeighbor()}. Views that
+	 * store their arcs by index override this, so that no node objects are needed for the neighbors.
+	 *
+	 * @param index The index of the node whose arcs to go through
+	 * @param consumer The function to call for each arc
+	 * @throws UnknownNodeException if there is no node with the given index
+	 */
+	default void forEachArc(int index, @NotNull ArcConsumer consumer) {
+		final GraphNode<ND> node = getNode(index);
+		if (node == null) throw new UnknownNodeException(null);
+		forEachNeighbor(node, (neighbor, edgeWeight, edgeData) -> consumer.accept(indexOf(neighbor), edgeWeight));
+	}
+
+	/**
+	 * Gets the neighbors of a node within the graph.
+	 *
+	 * @param node The node whose neighbors to get.
+	 * @return The neighbors of the node, as {@code GraphNeighbor}-objects.
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 */
+	default List<GraphNeighbor<ND, ED>> getNeighbors(@NotNull GraphNode<ND> node) {
+		final List<GraphNeighbor<ND, ED>> neighbors = new ArrayList<>();
+		forEachNeighbor(node, (neighbor, edgeWeight, edgeData) ->
+				neighbors.add(new GraphNeighbor<>(neighbor, edgeWeight, edgeData))
+		);
+		return neighbors;
+	}
+}
@@ -0,0 +1,131 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A read-only graph whose nodes and edges aren't stored, but generated on demand.
+ * <br>
+ * An implicit graph is defined by two functions: one that creates the data of a node from its name, and one that
+ * lists the neighbors of a node by name. A node is only created the first time it is reached, either because it
+ * was requested using {@code getNode()}, or because it is the neighbor of a node whose neighbors were requested.
+ * This way, memory use scales with the part of the graph that was actually explored, which makes it possible to
+ * search spaces that are far too large to store, like grids, tiled maps or the states of a puzzle.
+ * <br>
+ * Created nodes are kept so that the same node object is returned every time. Implicit graphs aren't thread-safe.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ *
+ * @see GraphView
+ */
+public class ImplicitGraph<ND extends JSONSerializable, ED extends JSONSerializable> implements GraphView<ND, ED> {
+	/**
+	 * A function that lists the neighbors of a node.
+	 *
+	 * @param <ND> The node data type
+	 * @param <ED> The edge data type
+	 */
+	@FunctionalInterface
+	public interface NeighborGenerator<ND extends JSONSerializable, ED extends JSONSerializable> {
+		/**
+		 * Lists the neighbors of the given node by passing them to the sink.
+		 *
+		 * @param node The node whose neighbors to list
+		 * @param sink The sink to pass each neighbor to
+		 */
+		void generate(GraphNode<ND> node, NeighborSink<ED> sink);
+	}
+
+	/**
+	 * Receives the neighbors listed by a {@code NeighborGenerator}.
+	 *
+	 * @param <ED> The edge data type
+	 */
+	@FunctionalInterface
+	public interface NeighborSink<ED extends JSONSerializable> {
+		/**
+		 * Adds a neighbor.
+		 *
+		 * @param name The name of the neighboring node
+		 * @param edgeWeight The weight of the edge connecting to the neighbor
+		 * @param edgeData The custom data of the edge connecting to the neighbor
+		 */
+		void accept(@NotNull String name, double edgeWeight, ED edgeData);
+	}
+
+	/**
+	 * Creates the data of a node from its name, or returns {@code null} if there is no node with that name.
+	 */
+	private final Function<String, ND> nodeFactory;
+
+	private final NeighborGenerator<ND, ED> neighborGenerator;
+
+	/**
+	 * The nodes that were created so far, by name.
+	 */
+	private final Map<String, GraphNode<ND>> nodes = new HashMap<>();
+
+	/**
+	 * Constructs an implicit graph.
+	 *
+	 * @param nodeFactory A function that creates the data of the node with the given name, or returns {@code null}
+	 *                    if there is no such node
+	 * @param neighborGenerator A function that lists the neighbors of a node
+	 */
+	public ImplicitGraph(@NotNull Function<String, ND> nodeFactory, @NotNull NeighborGenerator<ND, ED> neighborGenerator) {
+		this.nodeFactory = nodeFactory;
+		this.neighborGenerator = neighborGenerator;
+	}
+
+	/**
+	 * Gets the node with the given name, creating it if it wasn't reached before.
+	 *
+	 * @param name The name of the node
+	 * @return The node, or {@code null} if there is no node with this name
+	 */
+	public GraphNode<ND> getNode(@NotNull String name) {
+		final GraphNode<ND> existing = nodes.get(name);
+		if (existing != null) return existing;
+		final ND data = nodeFactory.apply(name);
+		if (data == null) return null;
+		final GraphNode<ND> node = new GraphNode<>(name, data);
+		nodes.put(name, node);
+		return node;
+	}
+
+	/**
+	 * Returns the number of nodes that were created so far.
+	 *
+	 * @return the number of created nodes
+	 */
+	public int getCreatedNodeCount() {
+		return nodes.size();
+	}
+
+	/**
+	 * Forgets all nodes that were created so far, freeing the memory they occupy. Nodes that are requested
+	 * afterwards are new objects, but equal to the old ones.
+	 */
+	public void clear() {
+		nodes.clear();
+	}
+
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return node != null && getNode(node.name) != null;
+	}
+
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		if (!contains(node)) throw new UnknownNodeException(node);
+		neighborGenerator.generate(node, (name, edgeWeight, edgeData) -> {
+			final GraphNode<ND> neighbor = getNode(name);
+			if (neighbor != null) consumer.accept(neighbor, edgeWeight, edgeData);
+		});
+	}
+}
@@ -0,0 +1,598 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+import processing.core.PVector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A read-only graph whose structure is stored in a memory-mapped file instead of on the heap.
+ * <br>
+ * The file contains the same compressed sparse row layout as a {@code CompactGraph}, along with the names and
+ * positions of the nodes and a hash table of the names. Opening a mapped graph only maps the file into memory; the
+ * operating system loads the pages that are actually accessed on demand, and shares them between all processes that
+ * have the same file open. This makes it possible to work with graphs that are much larger than the heap.
+ * <br>
+ * Nodes are identified by an index from {@code 0} (inclusive) to {@code getNodeCount()} (exclusive). Unlike in a
+ * {@code CompactGraph}, there are no unused indices. Node and edge data aren't stored, only edge weights, so the
+ * edge data passed to neighbor consumers is always {@code null}.
+ * <br>
+ * Since the file only contains the names and positions of the nodes, their {@code GraphNode} objects are created
+ * on demand, using the data factory given when the graph was opened. The most recently used ones are kept in a
+ * small cache of fixed size, so the same node isn't always represented by the same object; nodes have to be
+ * compared using {@code equals()}. Algorithms that only need the indices of the neighbors, like {@code AStar}, use
+ * {@code forEachArc()}, which reads the arcs straight from the file without creating any nodes.
+ * <br>
+ * Mapped graphs are immutable, and can be read from any number of threads at once. Each section of the file is
+ * mapped separately, so no single section may be larger than 2GB.
+ *
+ * @param <ND> The node data type
+ * @param <ED> The edge data type
+ *
+ * @see MappedGraph#write(CompactGraph, Function, Path)
+ * @see MappedGraph#open(Path, BiFunction)
+ */
+public class MappedGraph<ND extends JSONSerializable, ED extends JSONSerializable> implements GraphView<ND, ED> {
+	/**
+	 * The magic number at the start of every mapped graph file ("GRPH").
+	 */
+	private static final int MAGIC = 0x47525048;
+
+	/**
+	 * The version of the file format.
+	 */
+	private static final int FORMAT_VERSION = 2;
+
+	/**
+	 * The size of the file header in bytes.
+	 */
+	private static final int HEADER_SIZE = 32;
+
+	/**
+	 * The byte order used in the file.
+	 */
+	private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	/**
+	 * The size of the buffer used when writing files.
+	 */
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The number of nodes kept in the node cache.
+	 */
+	private static final int NODE_CACHE_SIZE = 1 << 12;
+
+	/**
+	 * Marks empty slots of the name table.
+	 */
+	private static final int EMPTY_SLOT = -1;
+
+	private final int nodeCount;
+
+	private final int arcCount;
+
+	/**
+	 * The offsets of the arcs of each node. The arcs of the node with index {@code i} are stored from
+	 * {@code offsets[i]} to {@code offsets[i + 1]}.
+	 */
+	private final IntBuffer offsets;
+
+	/**
+	 * The index of the node each arc points to.
+	 */
+	private final IntBuffer targets;
+
+	/**
+	 * The weight of each arc.
+	 */
+	private final DoubleBuffer weights;
+
+	/**
+	 * The x-coordinates of the nodes.
+	 */
+	private final FloatBuffer xs;
+
+	/**
+	 * The y-coordinates of the nodes.
+	 */
+	private final FloatBuffer ys;
+
+	/**
+	 * The offsets of the names of each node within {@code names}.
+	 */
+	private final IntBuffer nameOffsets;
+
+	/**
+	 * The names of all nodes, encoded as UTF-8.
+	 */
+	private final ByteBuffer names;
+
+	/**
+	 * An open-addressing hash table of the node names, which holds the index of the node in the slot its name hashes
+	 * to, or the next free slot after it. Its size is a power of two.
+	 */
+	private final IntBuffer nameTable;
+
+	private final int nameTableMask;
+
+	/**
+	 * Creates the data of a node from its name and position, or {@code null} if nodes have no data.
+	 */
+	private final BiFunction<String, PVector, ND> dataFactory;
+
+	/**
+	 * The most recently created nodes, in the slot given by their index modulo the cache size.
+	 */
+	private final AtomicReferenceArray<CachedNode<ND>> nodeCache = new AtomicReferenceArray<>(NODE_CACHE_SIZE);
+
+	private MappedGraph(FileChannel channel, BiFunction<String, PVector, ND> dataFactory) throws IOException {
+		this.dataFactory = dataFactory;
+		final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ORDER);
+		if (header.getInt(0) != MAGIC) throw new IOException("Not a mapped graph file");
+		if (header.getInt(4) != FORMAT_VERSION)
+			throw new IOException("Unsupported mapped graph format version " + header.getInt(4));
+		nodeCount = header.getInt(8);
+		arcCount = header.getInt(12);
+		final long nameBytes = header.getLong(16);
+		final int nameTableSize = header.getInt(24);
+		if (Integer.bitCount(nameTableSize) != 1) throw new IOException("Invalid name table size " + nameTableSize);
+		nameTableMask = nameTableSize - 1;
+
+		long position = HEADER_SIZE;
+		offsets = map(channel, position, 4L * (nodeCount + 1)).asIntBuffer();
+		position = align(position + 4L * (nodeCount + 1));
+		targets = map(channel, position, 4L * arcCount).asIntBuffer();
+		position = align(position + 4L * arcCount);
+		weights = map(channel, position, 8L * arcCount).asDoubleBuffer();
+		position = align(position + 8L * arcCount);
+		xs = map(channel, position, 4L * nodeCount).asFloatBuffer();
+		position = align(position + 4L * nodeCount);
+		ys = map(channel, position, 4L * nodeCount).asFloatBuffer();
+		position = align(position + 4L * nodeCount);
+		nameOffsets = map(channel, position, 4L * (nodeCount + 1)).asIntBuffer();
+		position = align(position + 4L * (nodeCount + 1));
+		nameTable = map(channel, position, 4L * nameTableSize).asIntBuffer();
+		position = align(position + 4L * nameTableSize);
+		names = map(channel, position, nameBytes);
+	}
+
+	/**
+	 * Opens a mapped graph from the given file, whose nodes don't have any data. The file stays mapped until the
+	 * graph is garbage collected.
+	 *
+	 * @param path The file to open
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the mapped graph
+	 * @throws IOException if the file can't be read or isn't a valid mapped graph file
+	 */
+	public static <ND extends JSONSerializable, ED extends JSONSerializable> MappedGraph<ND, ED> open(
+			@NotNull Path path
+	) throws IOException {
+		return open(path, null);
+	}
+
+	/**
+	 * Opens a mapped graph from the given file. The file stays mapped until the graph is garbage collected.
+	 *
+	 * @param path The file to open
+	 * @param dataFactory A function that creates the data of a node from its name and position
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @return the mapped graph
+	 * @throws IOException if the file can't be read or isn't a valid mapped graph file
+	 */
+	public static <ND extends JSONSerializable, ED extends JSONSerializable> MappedGraph<ND, ED> open(
+			@NotNull Path path,
+			BiFunction<String, PVector, ND> dataFactory
+	) throws IOException {
+		// The mappings stay valid after the channel is closed.
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new MappedGraph<>(channel, dataFactory);
+		}
+	}
+
+	/**
+	 * Writes the given graph to a file, so that it can later be opened as a mapped graph.
+	 * <br>
+	 * Unused node indices of the compact graph are left out, so the indices of the nodes in the mapped graph may
+	 * differ from the ones in the compact graph, but their order is preserved.
+	 *
+	 * @param graph The graph to write
+	 * @param positionGetter A function that returns the position of a node
+	 * @param path The file to write to
+	 * @param <ND> The node data type of the graph
+	 * @param <ED> The edge data type of the graph
+	 * @throws IOException if the file can't be written
+	 */
+	public static <ND extends JSONSerializable, ED extends JSONSerializable> void write(
+			@NotNull CompactGraph<ND, ED> graph,
+			@NotNull Function<GraphNode<ND>, PVector> positionGetter,
+			@NotNull Path path
+	) throws IOException {
+		// Assign new indices to the nodes, leaving out unused ones.
+		final int[] newIndices = new int[graph.getNodeCount()];
+		int nodeCount = 0;
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			newIndices[i] = graph.getNode(i) == null ? -1 : nodeCount++;
+		}
+		final int arcCount = graph.getArcCount();
+		final byte[][] encodedNames = new byte[nodeCount][];
+		long nameBytes = 0;
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			if (newIndices[i] == -1) continue;
+			encodedNames[newIndices[i]] = graph.getNode(i).name.getBytes(StandardCharsets.UTF_8);
+			nameBytes += encodedNames[newIndices[i]].length;
+		}
+		if (nameBytes > Integer.MAX_VALUE) throw new IOException("Node names are too large to be mapped");
+
+		// Keep the name table at most a quarter full, so that lookups rarely have to probe more than one slot.
+		final long nameTableSize = Long.highestOneBit(Math.max(nodeCount - 1, 1)) << 3;
+		if (nameTableSize > 1 << 29) throw new IOException("Too many nodes to be mapped");
+		final int[] nameTable = new int[(int) nameTableSize];
+		Arrays.fill(nameTable, EMPTY_SLOT);
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			if (newIndices[i] == -1) continue;
+			int slot = hashName(graph.getNode(i).name) & (nameTable.length - 1);
+			while (nameTable[slot] != EMPTY_SLOT) slot = (slot + 1) & (nameTable.length - 1);
+			nameTable[slot] = newIndices[i];
+		}
+
+		try (FileChannel channel = FileChannel.open(
+				path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE
+		)) {
+			final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ORDER);
+			buffer.putInt(MAGIC);
+			buffer.putInt(FORMAT_VERSION);
+			buffer.putInt(nodeCount);
+			buffer.putInt(arcCount);
+			buffer.putLong(nameBytes);
+			buffer.putInt(nameTable.length);
+			buffer.putInt(0); // reserved
+			long position = HEADER_SIZE;
+
+			int offset = 0;
+			ensureRemaining(channel, buffer, 4);
+			buffer.putInt(offset);
+			for (int i = 0; i < graph.getNodeCount(); i++) {
+				if (newIndices[i] == -1) continue;
+				offset += graph.getDegree(i);
+				ensureRemaining(channel, buffer, 4);
+				buffer.putInt(offset);
+			}
+			position = pad(channel, buffer, position + 4L * (nodeCount + 1));
+
+			for (int i = 0; i < graph.getNodeCount(); i++) {
+				for (int arc = graph.getArcStart(i); arc < graph.getArcEnd(i); arc++) {
+					ensureRemaining(channel, buffer, 4);
+					buffer.putInt(newIndices[graph.getTarget(arc)]);
+				}
+			}
+			position = pad(channel, buffer, position + 4L * arcCount);
+
+			for (int i = 0; i < graph.getNodeCount(); i++) {
+				for (int arc = graph.getArcStart(i); arc < graph.getArcEnd(i); arc++) {
+					ensureRemaining(channel, buffer, 8);
+					buffer.putDouble(graph.getWeight(arc));
+				}
+			}
+			position = pad(channel, buffer, position + 8L * arcCount);
+
+			for (int coordinate = 0; coordinate < 2; coordinate++) {
+				for (int i = 0; i < graph.getNodeCount(); i++) {
+					if (newIndices[i] == -1) continue;
+					final PVector nodePosition = positionGetter.apply(graph.getNode(i));
+					ensureRemaining(channel, buffer, 4);
+					buffer.putFloat(coordinate == 0 ? nodePosition.x : nodePosition.y);
+				}
+				position = pad(channel, buffer, position + 4L * nodeCount);
+			}
+
+			int nameOffset = 0;
+			ensureRemaining(channel, buffer, 4);
+			buffer.putInt(nameOffset);
+			for (byte[] name : encodedNames) {
+				nameOffset += name.length;
+				ensureRemaining(channel, buffer, 4);
+				buffer.putInt(nameOffset);
+			}
+			position = pad(channel, buffer, position + 4L * (nodeCount + 1));
+
+			for (int slot : nameTable) {
+				ensureRemaining(channel, buffer, 4);
+				buffer.putInt(slot);
+			}
+			pad(channel, buffer, position + 4L * nameTable.length);
+
+			for (byte[] name : encodedNames) {
+				int written = 0;
+				while (written < name.length) {
+					ensureRemaining(channel, buffer, 1);
+					final int length = Math.min(buffer.remaining(), name.length - written);
+					buffer.put(name, written, length);
+					written += length;
+				}
+			}
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Returns the number of nodes in this graph.
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the total number of arcs in this graph.
+	 *
+	 * @return the number of arcs
+	 */
+	public int getArcCount() {
+		return arcCount;
+	}
+
+	@Override
+	public int getNodeIndexBound() {
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the node with the given index. Its data is created by the data factory the graph was opened with, unless
+	 * the node is still in the node cache.
+	 *
+	 * @param index The index of the node
+	 * @return The node, or {@code null} if there is no node with this index
+	 */
+	@Override
+	public GraphNode<ND> getNode(int index) {
+		if (index < 0 || index >= nodeCount) return null;
+		final int slot = index & (NODE_CACHE_SIZE - 1);
+		final CachedNode<ND> cached = nodeCache.get(slot);
+		if (cached != null && cached.index == index) return cached.node;
+		final String name = getName(index);
+		final ND data = dataFactory == null ? null : dataFactory.apply(name, new PVector(getX(index), getY(index)));
+		final GraphNode<ND> node = new GraphNode<>(name, data);
+		nodeCache.set(slot, new CachedNode<>(index, node));
+		return node;
+	}
+
+	/**
+	 * Gets the node with the given name.
+	 *
+	 * @param name The name of the node
+	 * @return The node, or {@code null} if there is no node with this name
+	 */
+	public GraphNode<ND> getNode(@NotNull String name) {
+		final int index = indexOf(name);
+		if (index == -1) return null;
+		return getNode(index);
+	}
+
+	/**
+	 * Finds the index of the given node in this graph, by looking up its name.
+	 *
+	 * @param node The node to find
+	 * @return The index of the node, or {@code -1} if it isn't part of this graph
+	 */
+	@Override
+	public int indexOf(GraphNode<ND> node) {
+		if (node == null) return -1;
+		return indexOf(node.name);
+	}
+
+	@Override
+	public boolean contains(GraphNode<ND> node) {
+		return indexOf(node) != -1;
+	}
+
+	/**
+	 * Passes each neighbor of a node within the graph to the given consumer. Since the neighbors have to be created
+	 * unless they are still cached, {@code forEachArc()} should be used where the indices of the neighbors suffice.
+	 *
+	 * @param node The node whose neighbors to go through
+	 * @param consumer The function to call for each neighbor
+	 * @throws UnknownNodeException if the given node isn't contained in the graph.
+	 */
+	@Override
+	public void forEachNeighbor(@NotNull GraphNode<ND> node, @NotNull NeighborConsumer<ND, ED> consumer) {
+		final int index = indexOf(node);
+		if (index == -1) throw new UnknownNodeException(node);
+		for (int arc = offsets.get(index); arc < offsets.get(index + 1); arc++) {
+			consumer.accept(getNode(targets.get(arc)), weights.get(arc), null);
+		}
+	}
+
+	@Override
+	public void forEachArc(int index, @NotNull ArcConsumer consumer) {
+		if (index < 0 || index >= nodeCount) throw new UnknownNodeException(null);
+		for (int arc = offsets.get(index); arc < offsets.get(index + 1); arc++) {
+			consumer.accept(targets.get(arc), weights.get(arc));
+		}
+	}
+
+	/**
+	 * Returns the number of arcs leaving the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the degree of the node
+	 */
+	public int getDegree(int index) {
+		return offsets.get(index + 1) - offsets.get(index);
+	}
+
+	/**
+	 * Returns the position of the first arc of the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the position of the first arc
+	 */
+	public int getArcStart(int index) {
+		return offsets.get(index);
+	}
+
+	/**
+	 * Returns the position after the last arc of the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the position after the last arc
+	 */
+	public int getArcEnd(int index) {
+		return offsets.get(index + 1);
+	}
+
+	/**
+	 * Returns the index of the node the arc at the given position points to.
+	 *
+	 * @param arc The position of the arc
+	 * @return the index of the target node
+	 */
+	public int getTarget(int arc) {
+		return targets.get(arc);
+	}
+
+	/**
+	 * Returns the weight of the arc at the given position.
+	 *
+	 * @param arc The position of the arc
+	 * @return the weight of the arc
+	 */
+	public double getWeight(int arc) {
+		return weights.get(arc);
+	}
+
+	/**
+	 * Returns the x-coordinate of the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the x-coordinate
+	 */
+	public float getX(int index) {
+		return xs.get(index);
+	}
+
+	/**
+	 * Returns the y-coordinate of the node with the given index.
+	 *
+	 * @param index The index of the node
+	 * @return the y-coordinate
+	 */
+	public float getY(int index) {
+		return ys.get(index);
+	}
+
+	/**
+	 * Returns the name of the node with the given index. This creates a new string on every call.
+	 *
+	 * @param index The index of the node
+	 * @return the name of the node
+	 */
+	public String getName(int index) {
+		final int start = nameOffsets.get(index);
+		final byte[] bytes = new byte[nameOffsets.get(index + 1) - start];
+		names.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Finds the index of the node with the given name, using the name table of the file.
+	 *
+	 * @param name The name of the node
+	 * @return The index of the node, or {@code -1} if there is no node with this name
+	 */
+	public int indexOf(@NotNull String name) {
+		final byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+		for (int slot = hashName(name) & nameTableMask; ; slot = (slot + 1) & nameTableMask) {
+			final int index = nameTable.get(slot);
+			if (index == EMPTY_SLOT) return -1;
+			if (nameEquals(index, encoded)) return index;
+		}
+	}
+
+	/**
+	 * Checks whether the node with the given index has the given encoded name, without decoding it.
+	 */
+	private boolean nameEquals(int index, byte[] encoded) {
+		final int start = nameOffsets.get(index);
+		if (nameOffsets.get(index + 1) - start != encoded.length) return false;
+		for (int i = 0; i < encoded.length; i++) {
+			if (names.get(start + i) != encoded[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Hashes a node name for the name table. This is part of the file format, so it must never change.
+	 */
+	private static int hashName(String name) {
+		final int hash = name.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ORDER);
+	}
+
+	/**
+	 * Rounds the given file position up to the next multiple of 8, which is where the next section starts.
+	 */
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	/**
+	 * Writes zeroes until the given file position is aligned for the next section.
+	 */
+	private static long pad(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		final long aligned = align(position);
+		for (long i = position; i < aligned; i++) {
+			ensureRemaining(channel, buffer, 1);
+			buffer.put((byte) 0);
+		}
+		return aligned;
+	}
+
+	private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) flush(channel, buffer);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * A node in the node cache, along with its index.
+	 */
+	private static class CachedNode<ND extends JSONSerializable> {
+		final int index;
+		final GraphNode<ND> node;
+
+		CachedNode(int index, GraphNode<ND> node) {
+			this.index = index;
+			this.node = node;
+		}
+	}
+}
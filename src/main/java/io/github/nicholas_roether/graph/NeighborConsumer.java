@@ -0,0 +1,24 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+
+/**
+ * A callback that receives the neighbors of a node one by one, along with information about the edge connecting
+ * them. Unlike {@code GraphNeighbor}, this doesn't require an object to be created for every neighbor.
+ *
+ * @param <ND> The node data type of the neighboring nodes
+ * @param <ED> The type of the custom data of the edges
+ *
+ * @see Graph#forEachNeighbor(GraphNode, NeighborConsumer)
+ */
+@FunctionalInterface
+public interface NeighborConsumer<ND extends JSONSerializable, ED extends JSONSerializable> {
+	/**
+	 * Called once for each neighbor.
+	 *
+	 * @param neighbor The neighboring node
+	 * @param edgeWeight The weight of the edge connecting to the neighbor
+	 * @param edgeData The custom data of the edge connecting to the neighbor
+	 */
+	void accept(GraphNode<ND> neighbor, double edgeWeight, ED edgeData);
+}
@@ -0,0 +1,186 @@
+package io.github.nicholas_roether.graph;
+
+import io.github.nicholas_roether.JSONSerializable;
+import org.jetbrains.annotations.NotNull;
+import processing.core.PVector;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Computes node orders that improve the memory locality of a {@code CompactGraph}.
+ * <br>
+ * Each method returns an array of node indices in their new order, which can be passed to
+ * {@code CompactGraph.reorder()}. Unused indices of the graph are left out. Whether a reordering actually helps can
+ * be checked by comparing {@code getBandwidth()} and {@code getAverageArcSpan()} of the graph before and after.
+ *
+ * @see CompactGraph#reorder(int[])
+ */
+public final class NodeReordering {
+	/**
+	 * The number of bits per coordinate used for the Hilbert curve.
+	 */
+	private static final int HILBERT_ORDER = 15;
+
+	private NodeReordering() {}
+
+	/**
+	 * Orders the nodes in the order a breadth-first search visits them. Each connected component is searched
+	 * separately, starting from its node with the lowest index.
+	 *
+	 * @param graph The graph to order the nodes of
+	 * @return the node indices in their new order
+	 */
+	public static int[] breadthFirst(@NotNull CompactGraph<?, ?> graph) {
+		final int nodeCount = graph.getNodeCount();
+		final boolean[] visited = new boolean[nodeCount];
+		final int[] order = new int[countNodes(graph)];
+		int size = 0;
+		for (int root = 0; root < nodeCount; root++) {
+			if (graph.getNode(root) == null || visited[root]) continue;
+			visited[root] = true;
+			order[size++] = root;
+			// The order itself serves as the queue.
+			for (int head = size - 1; head < size; head++) {
+				final int index = order[head];
+				for (int arc = graph.getArcStart(index); arc < graph.getArcEnd(index); arc++) {
+					final int target = graph.getTarget(arc);
+					if (visited[target]) continue;
+					visited[target] = true;
+					order[size++] = target;
+				}
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Orders the nodes using the Reverse Cuthill-McKee algorithm, which aims to minimize the bandwidth of the graph.
+	 * <br>
+	 * This is a breadth-first search that starts each connected component at a node of minimal degree, and visits the
+	 * neighbors of each node in ascending order of their degree. The resulting order is then reversed.
+	 *
+	 * @param graph The graph to order the nodes of
+	 * @return the node indices in their new order
+	 */
+	public static int[] reverseCuthillMcKee(@NotNull CompactGraph<?, ?> graph) {
+		final int nodeCount = graph.getNodeCount();
+		final boolean[] visited = new boolean[nodeCount];
+		final int[] order = new int[countNodes(graph)];
+
+		// Visit the possible starting nodes in ascending order of their degree.
+		final long[] startCandidates = new long[order.length];
+		int candidateCount = 0;
+		for (int index = 0; index < nodeCount; index++) {
+			if (graph.getNode(index) != null)
+				startCandidates[candidateCount++] = ((long) graph.getDegree(index) << 32) | index;
+		}
+		Arrays.sort(startCandidates);
+
+		long[] neighbors = new long[16];
+		int size = 0;
+		for (long candidate : startCandidates) {
+			final int root = (int) candidate;
+			if (visited[root]) continue;
+			visited[root] = true;
+			order[size++] = root;
+			for (int head = size - 1; head < size; head++) {
+				final int index = order[head];
+				int neighborCount = 0;
+				for (int arc = graph.getArcStart(index); arc < graph.getArcEnd(index); arc++) {
+					final int target = graph.getTarget(arc);
+					if (visited[target]) continue;
+					visited[target] = true;
+					if (neighborCount == neighbors.length) neighbors = Arrays.copyOf(neighbors, neighborCount * 2);
+					neighbors[neighborCount++] = ((long) graph.getDegree(target) << 32) | target;
+				}
+				Arrays.sort(neighbors, 0, neighborCount);
+				for (int i = 0; i < neighborCount; i++) order[size++] = (int) neighbors[i];
+			}
+		}
+
+		for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+			final int temp = order[i];
+			order[i] = order[j];
+			order[j] = temp;
+		}
+		return order;
+	}
+
+	/**
+	 * Orders the nodes along a Hilbert curve over their positions, so that nodes that are close to each other in
+	 * space get similar indices. This works well for graphs where edges mostly connect nearby nodes, like road
+	 * networks.
+	 *
+	 * @param graph The graph to order the nodes of
+	 * @param positionGetter A function that returns the position of a node
+	 * @param <ND> The node data type of the graph
+	 * @return the node indices in their new order
+	 */
+	public static <ND extends JSONSerializable> int[] hilbert(
+			@NotNull CompactGraph<ND, ?> graph,
+			@NotNull Function<GraphNode<ND>, PVector> positionGetter
+	) {
+		final int nodeCount = graph.getNodeCount();
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for (int index = 0; index < nodeCount; index++) {
+			if (graph.getNode(index) == null) continue;
+			final PVector position = positionGetter.apply(graph.getNode(index));
+			minX = Math.min(minX, position.x);
+			minY = Math.min(minY, position.y);
+			maxX = Math.max(maxX, position.x);
+			maxY = Math.max(maxY, position.y);
+		}
+
+		// Scale the positions to the grid of the curve, using the same scale for both axes.
+		final int gridSize = 1 << HILBERT_ORDER;
+		final float extent = Math.max(maxX - minX, maxY - minY);
+		final float scale = extent > 0 ? (gridSize - 1) / extent : 0;
+		final long[] keys = new long[countNodes(graph)];
+		int size = 0;
+		for (int index = 0; index < nodeCount; index++) {
+			if (graph.getNode(index) == null) continue;
+			final PVector position = positionGetter.apply(graph.getNode(index));
+			final int x = (int) ((position.x - minX) * scale);
+			final int y = (int) ((position.y - minY) * scale);
+			keys[size++] = (hilbertDistance(x, y) << 32) | index;
+		}
+		Arrays.sort(keys);
+
+		final int[] order = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) order[i] = (int) keys[i];
+		return order;
+	}
+
+	/**
+	 * Computes the distance along the Hilbert curve of the point with the given grid coordinates.
+	 */
+	private static long hilbertDistance(int x, int y) {
+		long distance = 0;
+		for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s >>= 1) {
+			final int rx = (x & s) > 0 ? 1 : 0;
+			final int ry = (y & s) > 0 ? 1 : 0;
+			distance += (long) s * s * ((3 * rx) ^ ry);
+			// Rotate the quadrant so that the curve continues in the right direction.
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				final int temp = x;
+				x = y;
+				y = temp;
+			}
+		}
+		return distance;
+	}
+
+	private static int countNodes(CompactGraph<?, ?> graph) {
+		int count = 0;
+		for (int index = 0; index < graph.getNodeCount(); index++) {
+			if (graph.getNode(index) != null) count++;
+		}
+		return count;
+	}
+}
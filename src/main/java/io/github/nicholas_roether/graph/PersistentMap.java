@@ -0,0 +1,158 @@
+package io.github.nicholas_roether.graph;
+
+import java.util.Objects;
+
+/**
+ * An immutable hash map.
+ * <br>
+ * The entries are stored in a tree with 32 children per node, in which each level is indexed by the next five bits
+ * of the keys' hash codes. An entry is stored as high up in the tree as its hash code can be told apart from those of
+ * the other keys. Like with a {@code PersistentVector}, putting or removing an entry copies only the path from the
+ * root to that entry, and shares everything else with the previous map, so that it takes {@code O(log32(n))} time
+ * and space while the old map remains valid.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ *
+ * @see PersistentVector
+ */
+final class PersistentMap<K, V> {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(new Object[WIDTH]);
+
+	/**
+	 * The root of the tree. Arrays contain either {@code Leaf}s or child arrays.
+	 */
+	private final Object[] root;
+
+	private PersistentMap(Object[] root) {
+		this.root = root;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <K, V> PersistentMap<K, V> empty() {
+		return (PersistentMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Gets the value associated with the given key.
+	 *
+	 * @param key The key
+	 * @return the value, or {@code null} if the key isn't contained
+	 */
+	@SuppressWarnings("unchecked")
+	V get(K key) {
+		final int hash = key.hashCode();
+		Object[] node = root;
+		for (int shift = 0; ; shift += BITS) {
+			final Object child = node[(hash >>> shift) & MASK];
+			if (child == null) return null;
+			if (child instanceof Leaf) {
+				for (Leaf leaf = (Leaf) child; leaf != null; leaf = leaf.next) {
+					if (leaf.hash == hash && leaf.key.equals(key)) return (V) leaf.value;
+				}
+				return null;
+			}
+			node = (Object[]) child;
+		}
+	}
+
+	/**
+	 * Returns a map in which the given key is associated with the given value.
+	 *
+	 * @param key The key
+	 * @param value The value
+	 * @return the new map
+	 */
+	PersistentMap<K, V> put(K key, V value) {
+		return new PersistentMap<>(putIn(root, 0, new Leaf(key.hashCode(), key, value, null)));
+	}
+
+	/**
+	 * Returns a map that doesn't contain the given key.
+	 *
+	 * @param key The key
+	 * @return the new map, or this map if it doesn't contain the key
+	 */
+	PersistentMap<K, V> remove(K key) {
+		if (get(key) == null) return this;
+		return new PersistentMap<>(removeIn(root, 0, key.hashCode(), key));
+	}
+
+	private static Object[] putIn(Object[] node, int shift, Leaf leaf) {
+		final Object[] copy = node.clone();
+		final int slot = (leaf.hash >>> shift) & MASK;
+		final Object child = copy[slot];
+		if (child == null) {
+			copy[slot] = leaf;
+		} else if (child instanceof Leaf) {
+			final Leaf other = (Leaf) child;
+			if (other.hash == leaf.hash) {
+				// Keys with equal hash codes share a leaf chain
+				copy[slot] = new Leaf(leaf.hash, leaf.key, leaf.value, other.without(leaf.key));
+			} else {
+				// The hash codes differ in a later group of bits, so push the existing leaf one level down
+				final Object[] split = new Object[WIDTH];
+				split[(other.hash >>> (shift + BITS)) & MASK] = other;
+				copy[slot] = putIn(split, shift + BITS, leaf);
+			}
+		} else {
+			copy[slot] = putIn((Object[]) child, shift + BITS, leaf);
+		}
+		return copy;
+	}
+
+	private static Object[] removeIn(Object[] node, int shift, int hash, Object key) {
+		final Object[] copy = node.clone();
+		final int slot = (hash >>> shift) & MASK;
+		final Object child = copy[slot];
+		if (child instanceof Leaf) {
+			copy[slot] = ((Leaf) child).without(key);
+		} else {
+			final Object[] newChild = removeIn((Object[]) child, shift + BITS, hash, key);
+			copy[slot] = isEmpty(newChild) ? null : newChild;
+		}
+		return copy;
+	}
+
+	private static boolean isEmpty(Object[] node) {
+		for (Object child : node) {
+			if (child != null) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * A single entry, along with the other entries whose keys have the same hash code.
+	 */
+	private static final class Leaf {
+		final int hash;
+		final Object key;
+		final Object value;
+		final Leaf next;
+
+		Leaf(int hash, Object key, Object value, Leaf next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+
+		/**
+		 * Returns the chain starting at this leaf without the entry for the given key.
+		 *
+		 * @param key The key to remove
+		 * @return the new chain, or {@code null} if it is empty
+		 */
+		Leaf without(Object key) {
+			if (Objects.equals(this.key, key)) return next;
+			if (next == null) return this;
+			final Leaf newNext = next.without(key);
+			if (newNext == next) return this;
+			return new Leaf(hash, this.key, value, newNext);
+		}
+	}
+}
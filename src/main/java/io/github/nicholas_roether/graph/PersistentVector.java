@@ -0,0 +1,102 @@
+package io.github.nicholas_roether.graph;
+
+/**
+ * An immutable, sparse array of objects, indexed by non-negative integers.
+ * <br>
+ * The elements are stored in a tree with 32 children per node. Setting an element copies only the path from the
+ * root to that element, and shares everything else with the previous vector, so that it takes
+ * {@code O(log32(n))} time and space while the old vector remains valid.
+ *
+ * @param <T> The element type
+ */
+final class PersistentVector<T> {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final PersistentVector<?> EMPTY = new PersistentVector<>(new Object[WIDTH], 0, 0);
+
+	/**
+	 * The root of the tree. At the lowest level, arrays contain elements, otherwise they contain child arrays.
+	 */
+	private final Object[] root;
+
+	/**
+	 * The number of index bits below the root level.
+	 */
+	private final int shift;
+
+	/**
+	 * One more than the highest index that was ever set.
+	 */
+	private final int size;
+
+	private PersistentVector(Object[] root, int shift, int size) {
+		this.root = root;
+		this.shift = shift;
+		this.size = size;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> PersistentVector<T> empty() {
+		return (PersistentVector<T>) EMPTY;
+	}
+
+	/**
+	 * Returns one more than the highest index that was ever set.
+	 *
+	 * @return the size of the vector
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the element at the given index.
+	 *
+	 * @param index The index
+	 * @return the element, or {@code null} if none was set
+	 */
+	@SuppressWarnings("unchecked")
+	T get(int index) {
+		if (index < 0 || index >= size) return null;
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(index >>> level) & MASK];
+			if (node == null) return null;
+		}
+		return (T) node[index & MASK];
+	}
+
+	/**
+	 * Returns a vector in which the element at the given index is replaced.
+	 *
+	 * @param index The index
+	 * @param value The new element
+	 * @return the new vector
+	 */
+	PersistentVector<T> set(int index, T value) {
+		if (index < 0) throw new IndexOutOfBoundsException(index);
+		Object[] root = this.root;
+		int shift = this.shift;
+		// Add levels on top of the tree until the index fits
+		while (((long) index >>> (shift + BITS)) != 0) {
+			final Object[] newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			root = newRoot;
+			shift += BITS;
+		}
+		return new PersistentVector<>(setIn(root, shift, index, value), shift, Math.max(size, index + 1));
+	}
+
+	private static Object[] setIn(Object[] node, int level, int index, Object value) {
+		final Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+		if (level == 0) {
+			copy[index & MASK] = value;
+		} else {
+			final int slot = (index >>> level) & MASK;
+			copy[slot] = setIn((Object[]) copy[slot], level - BITS, index, value);
+		}
+		return copy;
+	}
+}
@@ -4,8 +4,8 @@ import io.github.nicholas_roether.components.NodeComponent;
 import io.github.nicholas_roether.general.EdgeData;
 import io.github.nicholas_roether.general.NodeData;
 import io.github.nicholas_roether.graph.Graph;
-import io.github.nicholas_roether.graph.GraphNeighbor;
 import io.github.nicholas_roether.graph.GraphNode;
+import io.github.nicholas_roether.graph.NeighborConsumer;
 import io.github.nicholas_roether.physics.PhysicsObject;
 import org.jetbrains.annotations.NotNull;
 import processing.core.PVector;
@@ -65,6 +65,24 @@ public class NodePhysics implements PhysicsObject {
 
 	private float screenHeight = 0;
 
+	/**
+	 * The acceleration that is accumulated during {@code update()}. Reused between updates so that the
+	 * neighbors of the node can be iterated without allocating.
+	 */
+	private final PVector acc = new PVector(0, 0);
+
+	/**
+	 * Adds the spring force of each edge to {@code acc}. Kept in a field so that it isn't allocated on every
+	 * update.
+	 */
+	private final NeighborConsumer<NodeData, EdgeData> addSpringForce = (neighbor, edgeWeight, edgeData) -> {
+		final float distance = getDistance(neighbor);
+		if (distance == 0) return; // Ignore nodes that have 0 distance between them because that breaks the math
+		final PVector normal = getNormalTo(neighbor);
+		final float acceleration = getAccelerationTowards(distance, edgeWeight);
+		acc.add(normal.mult(acceleration));
+	};
+
 	public NodePhysics(GraphNode<NodeData> node, Graph<NodeData, EdgeData> graph) {
 		this.node = node;
 		this.graph = graph;
@@ -142,7 +160,7 @@ public class NodePhysics implements PhysicsObject {
 			return;
 		}
 
-		final PVector acc = new PVector(0, 0);
+		acc.set(0, 0);
 
 
 		for (GraphNode<NodeData> node : graph.getNodes()) {
@@ -165,13 +183,7 @@ public class NodePhysics implements PhysicsObject {
 				acc.add(normal.copy().mult(-repulsion));
 			}
 		}
-		for (GraphNeighbor<NodeData, EdgeData> neighbor : graph.getNeighbors(node)) {
-			final float distance = getDistance(neighbor.node);
-			if (distance == 0) continue; // Ignore nodes that have 0 distance between them because that breaks the math
-			final PVector normal = getNormalTo(neighbor.node);
-			final float acceleration = getAccelerationTowards(distance, neighbor.edgeWeight);
-			acc.add(normal.mult(acceleration));
-		}
+		graph.forEachNeighbor(node, addSpringForce);
 		acc.add(getFriction()); // Add the acceleration due to friction
 		setAcceleration(acc);
 